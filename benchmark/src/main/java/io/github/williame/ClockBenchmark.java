@@ -0,0 +1,82 @@
+package io.github.williame;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.williame.timemillis.CoarseClock;
+import io.github.williame.timemillis.TimeMillis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Reading the clock from many threads at once, as a busy request path does; all threads share the clocks
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class ClockBenchmark {
+
+    CoarseClock ticking, lazy;
+
+    @Setup
+    public void setup() {
+        ticking = CoarseClock.ticking(1);
+        lazy = CoarseClock.lazy(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ticking.close();
+    }
+
+    @Benchmark
+    public long testMillis_System() {
+        return System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public long testMillis_CoarseClockTicking() {
+        return ticking.millis();
+    }
+
+    @Benchmark
+    public long testMillis_CoarseClockLazy() {
+        return lazy.millis();
+    }
+
+    @Benchmark
+    public String testIsoString_TimeMillis() {
+        return TimeMillis.toIsoString(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public String testIsoString_CoarseClockTicking() {
+        return ticking.isoString();
+    }
+
+    @Benchmark
+    public String testIsoString_CoarseClockLazy() {
+        return lazy.isoString();
+    }
+
+    @Benchmark
+    public long testHour_TimeMillis() {
+        return TimeMillis.truncateToHours(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long testHour_CoarseClockTicking() {
+        return ticking.hour();
+    }
+}
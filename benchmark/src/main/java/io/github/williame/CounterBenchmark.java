@@ -0,0 +1,68 @@
+package io.github.williame;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.williame.timemillis.TimeBucketCounter;
+import io.github.williame.timemillis.TimeMillis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Many threads counting events per minute into shared counters; try e.g. -t 64
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(CounterBenchmark.ITERATIONS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class CounterBenchmark {
+
+    public static final int ITERATIONS = 1000;
+
+    final ConcurrentHashMap<Long, LongAdder> map = new ConcurrentHashMap<>();
+    final TimeBucketCounter counter = TimeBucketCounter.ofMinutes(60);
+
+    // each thread's own stream of events, a few minutes' worth that every thread goes through together
+    @State(Scope.Thread)
+    public static class Events {
+        long[] timestamps = new long[ITERATIONS];
+
+        @Setup
+        public void setup() {
+            Random random = new Random();
+            long clock = TimeMillis.of(2020, 5, 1);
+            for (int i = 0; i < ITERATIONS; i++) {
+                clock += random.nextInt(500);
+                timestamps[i] = clock;
+            }
+        }
+    }
+
+    @Benchmark
+    public void testCount_ConcurrentHashMap(Events events) {
+        for (long timestamp: events.timestamps) {
+            map.computeIfAbsent(TimeMillis.truncateToMinutes(timestamp), k -> new LongAdder()).increment();
+        }
+    }
+
+    @Benchmark
+    public void testCount_TimeBucketCounter(Events events) {
+        for (long timestamp: events.timestamps) {
+            counter.increment(timestamp);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.williame;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.github.williame.timemillis.TimeMillis;
+import io.github.williame.timemillis.TimestampIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A window of a million events over 30 days, as a TreeMap of Instants to counts and as a TimestampIndex
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(IndexBenchmark.ITERATIONS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class IndexBenchmark {
+
+    public static final int ITERATIONS = 1000;
+    static final int EVENTS = 1_000_000;
+    static final long BEGIN = TimeMillis.of(2020, 1, 1), END = TimeMillis.of(2020, 1, 31);
+
+    TreeMap<Instant, Integer> treeMap = new TreeMap<>();
+    TimestampIndex index = new TimestampIndex();
+    long[] froms = new long[ITERATIONS], arrivals = new long[ITERATIONS];
+    int[] countsRet = new int[ITERATIONS], hoursRet = new int[24];
+
+    @Setup
+    public void setup() {
+        Random random = new Random();
+        long clock = BEGIN;
+        for (int i = 0; i < EVENTS; i++) {
+            // mostly in order, with a few late
+            clock += random.nextInt(5200);
+            long timestamp = random.nextInt(20) == 0? clock - random.nextInt(60_000): clock;
+            treeMap.merge(Instant.ofEpochMilli(timestamp), 1, Integer::sum);
+            index.add(timestamp);
+        }
+        for (int i = 0; i < ITERATIONS; i++) {
+            froms[i] = TimeMillis.nextRandomTimestamp(random, BEGIN, END);
+            clock += random.nextInt(5200);
+            arrivals[i] = random.nextInt(20) == 0? clock - random.nextInt(60_000): clock;
+        }
+    }
+
+    @Benchmark
+    public void testCountMinute_TreeMap() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Instant from = Instant.ofEpochMilli(froms[i]);
+            int count = 0;
+            for (int c: treeMap.subMap(from, from.plusSeconds(60)).values()) {
+                count += c;
+            }
+            countsRet[i] = count;
+        }
+    }
+
+    @Benchmark
+    public void testCountMinute_TimestampIndex() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            countsRet[i] = index.count(froms[i], froms[i] + 60_000);
+        }
+    }
+
+    // the hours of a day
+    @Benchmark
+    public void testCountByHours_TreeMap() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Instant day = Instant.ofEpochMilli(TimeMillis.truncateToDays(froms[i]));
+            for (int h = 0; h < 24; h++) {
+                int count = 0;
+                for (int c: treeMap.subMap(day.plusSeconds(h * 3600), day.plusSeconds((h + 1) * 3600)).values()) {
+                    count += c;
+                }
+                hoursRet[h] = count;
+            }
+        }
+    }
+
+    @Benchmark
+    public void testCountByHours_TimestampIndex() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            index.countByHours(froms[i], hoursRet);
+        }
+    }
+
+    @Benchmark
+    public Object testAdd_TreeMap() {
+        TreeMap<Instant, Integer> window = new TreeMap<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            window.merge(Instant.ofEpochMilli(arrivals[i]), 1, Integer::sum);
+        }
+        return window;
+    }
+
+    @Benchmark
+    public Object testAdd_TimestampIndex() {
+        TimestampIndex window = new TimestampIndex();
+        for (int i = 0; i < ITERATIONS; i++) {
+            window.add(arrivals[i]);
+        }
+        return window;
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.williame;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.github.williame.timemillis.TimeMillis;
+import io.github.williame.timemillis.TimestampScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Finding an hour of lines in a sorted log file of many GB; try e.g. -p logMegabytes=100 for a quicker run
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class LogSearchBenchmark {
+
+    @Param({"4096"})
+    int logMegabytes;
+
+    static final TimestampScanner scanner = TimestampScanner.ofLineStart();
+
+    Path logFile;
+    long first, last;
+    Random random = new Random();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        logFile = Files.createTempFile("timemillis", ".log");
+        final long size = logMegabytes * (1L << 20);
+        first = TimeMillis.of(2020, 1, 1);
+        long timestamp = first;
+        byte[] line = new byte[100];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(logFile), 1 << 20)) {
+            for (long written = 0; written < size; ) {
+                timestamp += random.nextInt(4);
+                int len = TimeMillis.formatIso(timestamp, line, 0);
+                byte[] message = (" INFO [worker-" + random.nextInt(16) + "] request served\n")
+                        .getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(message, 0, line, len, message.length);
+                len += message.length;
+                out.write(line, 0, len);
+                written += len;
+            }
+        }
+        last = timestamp;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(logFile);
+    }
+
+    long nextFrom() {
+        return TimeMillis.nextRandomTimestamp(random, first, last);
+    }
+
+    @Benchmark
+    public long[] testFindRange_Scan() throws IOException {
+        final long from = nextFrom(), to = from + 3600_000;
+        final long[] range = {-1, -1};
+        scanner.scan(logFile, (offset, timestamp) -> {
+            if (range[0] < 0 && timestamp >= from) {
+                range[0] = offset;
+            }
+            if (range[1] < 0 && timestamp >= to) {
+                range[1] = offset;
+            }
+        });
+        return range;
+    }
+
+    @Benchmark
+    public long[] testFindRange_TimestampScanner() throws IOException {
+        final long from = nextFrom();
+        return scanner.findRange(logFile, from, from + 3600_000);
+    }
+}
@@ -25,14 +25,39 @@
 
 package io.github.williame;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import io.github.williame.timemillis.Bucketer;
+import io.github.williame.timemillis.CachedIsoFormatter;
+import io.github.williame.timemillis.IsoParser;
+import io.github.williame.timemillis.TimeMicros;
 import io.github.williame.timemillis.TimeMillis;
+import io.github.williame.timemillis.TimeMillisFormat;
+import io.github.williame.timemillis.TimeMillisInterop;
+import io.github.williame.timemillis.TimeMillisZone;
+import io.github.williame.timemillis.TimeNanos;
+import io.github.williame.timemillis.TimestampCodec;
+import io.github.williame.timemillis.TimestampScanner;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -43,6 +68,7 @@ import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
 @Fork(1)
@@ -56,19 +82,63 @@ public class MyBenchmark {
 
     public static final int ITERATIONS = 1000;
 
-    long[] timestamps, timestampsRet;
+    static final CachedIsoFormatter cachedIsoFormatter = new CachedIsoFormatter();
+
+    static final ZoneId zone = ZoneId.of("America/New_York");
+    static final TimeMillisZone timeMillisZone = TimeMillisZone.of(zone);
+
+    static final Bucketer fiveMinutes = Bucketer.ofMinutes(5), quarters = Bucketer.ofQuarters();
+    // a width only known at run time, e.g. from configuration
+    int bucketMinutes = 15;
+    Bucketer minutes = Bucketer.ofMinutes(bucketMinutes);
+
+    // Apache's common log format
+    static final String LOG_PATTERN = "dd/MMM/yyyy:HH:mm:ss";
+    static final DateTimeFormatter logFormatter = DateTimeFormatter.ofPattern(LOG_PATTERN, Locale.ENGLISH)
+            .withZone(ZoneOffset.UTC);
+    static final TimeMillisFormat logFormat = TimeMillisFormat.compile(LOG_PATTERN);
+
+    // 32-bit seconds, as this library used to be limited to, so numbers stay comparable
+    static final long EPOCH_32BIT_END = TimeMillis.of(2038, 1, 19);
+
+    byte[] encodedTimestamps;
+    int[] hoursRet = new int[24];
+    long[] timestamps, timestampsRet, clusteredTimestamps, wideTimestamps, mixedSignTimestamps;
+    long[] microTimestamps, nanoTimestamps;
+    Instant[] microInstants, nanoInstants;
+    String[] microStrs, nanoStrs, logStrs;
+    // a log file of LOG_LINES lines, each starting with a timestamp
+    static final int LOG_LINES = 100 * ITERATIONS;
+    Path logFile;
+    long[] logTimestampsRet = new long[LOG_LINES];
+    static final TimestampScanner logScanner = TimestampScanner.ofLineStart();
+    Instant[] wideInstants, mixedSignInstants;
+    int[] wideYears;
     Instant[] instants, instantsRet;
-    String[] timeStrs, timeStrsRet;
+    LocalDateTime[] localDateTimes;
+    LocalDate[] localDatesRet = new LocalDate[ITERATIONS];
+    // a reused output buffer, as a logger or serializer has
+    char[] isoCharsRet = new char[64];
+    String[] timeStrs, timeStrsRet, offsetTimeStrs, dirtyTimeStrs;
+    int[] errorsRet;
     int[] intsRet;
+    char[] timeChars;
+    byte[] timeBytes, offsetTimeBytes;
+    ByteBuffer timeDirectBuffer, offsetTimeDirectBuffer;
+    int[] timeOffsets, timeLengths, offsetTimeOffsets;
+    // the clustered timestamps as a column, where consecutive rows share their date
+    String[] clusteredTimeStrs;
+    byte[] clusteredTimeBytes;
+    int[] clusteredTimeOffsets, clusteredTimeLengths;
 
     @Setup
-    public void setup() {
+    public void setup() throws IOException {
         Random random = new Random();
         timestamps = new long[ITERATIONS];
         instants = new Instant[ITERATIONS];
         timeStrs = new String[ITERATIONS];
         for (int i = 0; i < ITERATIONS; i++) {
-            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            long timestamp = TimeMillis.nextRandomTimestamp(random, 0, EPOCH_32BIT_END);
             timestamps[i] = timestamp;
             instants[i] = Instant.ofEpochMilli(timestamp);
             timeStrs[i] = instants[i].toString();
@@ -77,6 +147,105 @@ public class MyBenchmark {
         instantsRet = new Instant[ITERATIONS];
         timeStrsRet = new String[ITERATIONS];
         intsRet = new int[ITERATIONS];
+        StringBuilder column = new StringBuilder();
+        timeOffsets = new int[ITERATIONS];
+        timeLengths = new int[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeOffsets[i] = column.length();
+            timeLengths[i] = timeStrs[i].length();
+            column.append(timeStrs[i]).append('\n');
+        }
+        timeChars = column.toString().toCharArray();
+        timeBytes = column.toString().getBytes(StandardCharsets.US_ASCII);
+        timeDirectBuffer = ByteBuffer.allocateDirect(timeBytes.length);
+        timeDirectBuffer.put(timeBytes).clear();
+        // anywhere from 0000 to 9999
+        wideTimestamps = new long[ITERATIONS];
+        wideInstants = new Instant[ITERATIONS];
+        wideYears = new int[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            wideTimestamps[i] = TimeMillis.nextRandomTimestamp(random, TimeMillis.of(0, 1, 1), TimeMillis.of(9999, 12, 31));
+            wideInstants[i] = Instant.ofEpochMilli(wideTimestamps[i]);
+            wideYears[i] = TimeMillis.getYear(wideTimestamps[i]);
+        }
+        // 1901 to 2038, half of them before the epoch
+        mixedSignTimestamps = new long[ITERATIONS];
+        mixedSignInstants = new Instant[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            mixedSignTimestamps[i] = TimeMillis.nextRandomTimestamp(random, -EPOCH_32BIT_END, EPOCH_32BIT_END);
+            mixedSignInstants[i] = Instant.ofEpochMilli(mixedSignTimestamps[i]);
+        }
+        // RFC 3339 with microseconds and a local offset, as many logs and databases write them
+        offsetTimeStrs = new String[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            offsetTimeStrs[i] = instants[i].plusNanos(random.nextInt(1000) * 1000)
+                    .atOffset(ZoneOffset.ofTotalSeconds((random.nextInt(48) - 24) * 1800)).toString();
+        }
+        column.setLength(0);
+        offsetTimeOffsets = new int[ITERATIONS + 1];
+        for (int i = 0; i < ITERATIONS; i++) {
+            column.append(offsetTimeStrs[i]);
+            offsetTimeOffsets[i + 1] = column.length();
+        }
+        offsetTimeBytes = column.toString().getBytes(StandardCharsets.US_ASCII);
+        offsetTimeDirectBuffer = ByteBuffer.allocateDirect(offsetTimeBytes.length);
+        offsetTimeDirectBuffer.put(offsetTimeBytes).clear();
+        // micros and nanos, 1970 to 2038, as tracing and market data carry them
+        microTimestamps = new long[ITERATIONS];
+        nanoTimestamps = new long[ITERATIONS];
+        microInstants = new Instant[ITERATIONS];
+        nanoInstants = new Instant[ITERATIONS];
+        microStrs = new String[ITERATIONS];
+        nanoStrs = new String[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            microTimestamps[i] = TimeMicros.nextRandomTimestamp(random, 0, TimeMicros.ofMillis(EPOCH_32BIT_END));
+            microInstants[i] = TimeMicros.toInstant(microTimestamps[i]);
+            microStrs[i] = microInstants[i].toString();
+            nanoTimestamps[i] = TimeNanos.nextRandomTimestamp(random, 0, TimeNanos.ofMillis(EPOCH_32BIT_END));
+            nanoInstants[i] = TimeNanos.toInstant(nanoTimestamps[i]);
+            nanoStrs[i] = nanoInstants[i].toString();
+        }
+        localDateTimes = new LocalDateTime[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            localDateTimes[i] = LocalDateTime.ofInstant(nanoInstants[i], ZoneOffset.UTC);
+        }
+        logStrs = new String[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            logStrs[i] = logFormatter.format(instants[i]);
+        }
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < LOG_LINES; i++) {
+            log.append(timeStrs[i % ITERATIONS]).append(" INFO [worker-").append(random.nextInt(16)).append("] request ")
+                    .append(random.nextInt(1_000_000)).append(" served in ").append(random.nextInt(100)).append(" ms\n");
+        }
+        logFile = Files.createTempFile("timemillis", ".log");
+        logFile.toFile().deleteOnExit();
+        Files.write(logFile, log.toString().getBytes(StandardCharsets.US_ASCII));
+        // a feed where 1% of rows are bad
+        dirtyTimeStrs = timeStrs.clone();
+        for (int i = 0; i < ITERATIONS; i += 100) {
+            dirtyTimeStrs[i] = dirtyTimeStrs[i].replace('-', '/');
+        }
+        errorsRet = new int[ITERATIONS];
+        // a log-like stream: nearly monotonic with a few events per millisecond
+        clusteredTimestamps = new long[ITERATIONS];
+        long clock = System.currentTimeMillis();
+        for (int i = 0; i < ITERATIONS; i++) {
+            clock += random.nextInt(3);
+            clusteredTimestamps[i] = clock;
+        }
+        encodedTimestamps = TimestampCodec.encode(clusteredTimestamps);
+        clusteredTimeStrs = new String[ITERATIONS];
+        clusteredTimeOffsets = new int[ITERATIONS];
+        clusteredTimeLengths = new int[ITERATIONS];
+        column.setLength(0);
+        for (int i = 0; i < ITERATIONS; i++) {
+            clusteredTimeStrs[i] = TimeMillis.toIsoString(clusteredTimestamps[i]);
+            clusteredTimeOffsets[i] = column.length();
+            clusteredTimeLengths[i] = clusteredTimeStrs[i].length();
+            column.append(clusteredTimeStrs[i]).append('\n');
+        }
+        clusteredTimeBytes = column.toString().getBytes(StandardCharsets.US_ASCII);
     }
 
     @Benchmark
@@ -120,6 +289,270 @@ public class MyBenchmark {
         }
     }
 
+    @Benchmark
+    public void testTryParse_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.tryParse(timeStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseDirty_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            try {
+                instantsRet[i] = Instant.parse(dirtyTimeStrs[i]);
+            } catch (DateTimeParseException e) {
+                instantsRet[i] = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public void testTryParseAllDirty_TimeMillis() {
+        TimeMillis.tryParseAll(dirtyTimeStrs, timestampsRet, errorsRet);
+    }
+
+    @Benchmark
+    public void testParseOffset_OffsetDateTime() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = OffsetDateTime.parse(offsetTimeStrs[i]).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testParseOffset_IsoParser() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = IsoParser.parseMicros(offsetTimeStrs[i]);
+        }
+    }
+
+    // Not the fixed layout, so through the general parser
+    @Benchmark
+    public void testParseOffsetBytes_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.parse(offsetTimeBytes, offsetTimeOffsets[i], offsetTimeOffsets[i + 1]);
+        }
+    }
+
+    @Benchmark
+    public void testParseOffsetDirectByteBuffer_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.parse(offsetTimeDirectBuffer, offsetTimeOffsets[i],
+                    offsetTimeOffsets[i + 1] - offsetTimeOffsets[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParse_IsoParser() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = IsoParser.parseMillis(timeStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseBytes_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int begin = timeOffsets[i];
+            timestampsRet[i] = TimeMillis.parse(timeBytes, begin, begin + timeLengths[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseDirectByteBuffer_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.parse(timeDirectBuffer, timeOffsets[i], timeLengths[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseAll_TimeMillis() {
+        TimeMillis.parseAll(timeStrs, timestampsRet);
+    }
+
+    @Benchmark
+    public void testParseAllChars_TimeMillis() {
+        TimeMillis.parseAll(timeChars, timeOffsets, timeLengths, timestampsRet);
+    }
+
+    @Benchmark
+    public void testParseAllBytes_TimeMillis() {
+        TimeMillis.parseAll(timeBytes, timeOffsets, timeLengths, timestampsRet);
+    }
+
+    @Benchmark
+    public void testParseClustered_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.parse(clusteredTimeStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseAllClustered_TimeMillis() {
+        TimeMillis.parseAll(clusteredTimeStrs, timestampsRet);
+    }
+
+    @Benchmark
+    public void testParseAllClusteredBytes_TimeMillis() {
+        TimeMillis.parseAll(clusteredTimeBytes, clusteredTimeOffsets, clusteredTimeLengths, timestampsRet);
+    }
+
+    @Benchmark
+    public void testParseMicros_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = Instant.parse(microStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseMicros_TimeMicros() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMicros.parse(microStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToStringMicros_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = microInstants[i].toString();
+        }
+    }
+
+    @Benchmark
+    public void testToStringMicros_TimeMicros() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = TimeMicros.toIsoString(microTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetMonthMicros_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = microInstants[i].atZone(ZoneOffset.UTC).getMonthValue();
+        }
+    }
+
+    @Benchmark
+    public void testGetMonthMicros_TimeMicros() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMicros.getMonth(microTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseNanos_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = Instant.parse(nanoStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testParseNanos_TimeNanos() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeNanos.parse(nanoStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToStringNanos_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = nanoInstants[i].toString();
+        }
+    }
+
+    @Benchmark
+    public void testToStringNanos_TimeNanos() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = TimeNanos.toIsoString(nanoTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetMonthNanos_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = nanoInstants[i].atZone(ZoneOffset.UTC).getMonthValue();
+        }
+    }
+
+    @Benchmark
+    public void testGetMonthNanos_TimeNanos() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeNanos.getMonth(nanoTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOG_LINES)
+    public void testScanLogFile_BufferedReader() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.US_ASCII)) {
+            int i = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                logTimestampsRet[i++] = TimeMillis.parse(line, 0, line.indexOf(' '));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOG_LINES)
+    public long[] testScanLogFile_TimestampScanner() throws IOException {
+        return logScanner.scan(logFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOG_LINES)
+    public long[] testScanLogFileParallel_TimestampScanner() throws IOException {
+        return logScanner.scanParallel(logFile);
+    }
+
+    @Benchmark
+    public void testParseLog_DateTimeFormatter() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = logFormatter.parse(logStrs[i], Instant::from);
+        }
+    }
+
+    @Benchmark
+    public void testParseLog_TimeMillisFormat() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = logFormat.parse(logStrs[i]);
+        }
+    }
+
+    @Benchmark
+    public void testFormatLog_DateTimeFormatter() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = logFormatter.format(instants[i]);
+        }
+    }
+
+    @Benchmark
+    public void testFormatLog_TimeMillisFormat() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = logFormat.format(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] testEncode_TimestampCodec() {
+        return TimestampCodec.encode(clusteredTimestamps);
+    }
+
+    @Benchmark
+    public void testDecode_TimestampCodec() {
+        TimestampCodec.decode(encodedTimestamps, 0, timestampsRet, 0, ITERATIONS);
+    }
+
+    @Benchmark
+    public void testHourHistogram_long() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            hoursRet[TimeMillis.getHour(clusteredTimestamps[i])]++;
+        }
+    }
+
+    @Benchmark
+    public void testHourHistogram_TimestampCodec() {
+        TimestampCodec.forEach(encodedTimestamps, timestamp -> hoursRet[TimeMillis.getHour(timestamp)]++);
+    }
+
     @Benchmark
     public void testToString_Instant() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -143,6 +576,70 @@ public class MyBenchmark {
         timeStrsRet[0] = stringBuilder.toString();
     }
 
+    @Benchmark
+    public void testToStringClustered_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = TimeMillis.toIsoString(clusteredTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToStringClustered_CachedIsoFormatter() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = cachedIsoFormatter.toIsoString(clusteredTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testFormatIsoBytesClustered_TimeMillis() {
+        byte[] bytes = timeBytes;
+        for (int i = 0, ofs = 0; i < ITERATIONS; i++) {
+            ofs = TimeMillis.formatIso(clusteredTimestamps[i], bytes, ofs);
+        }
+    }
+
+    @Benchmark
+    public void testFormatIsoBytesClustered_CachedIsoFormatter() {
+        byte[] bytes = timeBytes;
+        for (int i = 0, ofs = 0; i < ITERATIONS; i++) {
+            ofs = cachedIsoFormatter.formatIso(clusteredTimestamps[i], bytes, ofs);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void testFormatIsoBytesClusteredShared_CachedIsoFormatter() {
+        byte[] bytes = timeBytes;
+        for (int i = 0, ofs = 0; i < ITERATIONS; i++) {
+            ofs = cachedIsoFormatter.formatIso(clusteredTimestamps[i], bytes, ofs);
+        }
+    }
+
+    @Benchmark
+    public void testFormatIsoChars_TimeMillis() {
+        char[] chars = timeChars;
+        for (int i = 0, ofs = 0; i < ITERATIONS; i++) {
+            ofs = TimeMillis.formatIso(timestamps[i], chars, ofs);
+        }
+    }
+
+    @Benchmark
+    public void testFormatIsoBytes_TimeMillis() {
+        byte[] bytes = timeBytes;
+        for (int i = 0, ofs = 0; i < ITERATIONS; i++) {
+            ofs = TimeMillis.formatIso(timestamps[i], bytes, ofs);
+        }
+    }
+
+    @Benchmark
+    public void testFormatIsoDirectByteBuffer_TimeMillis() {
+        ByteBuffer buf = timeDirectBuffer;
+        buf.clear();
+        for (int i = 0; i < ITERATIONS; i++) {
+            TimeMillis.formatIso(timestamps[i], buf);
+        }
+    }
+
     @Benchmark
     public void testTruncateDays_Instant() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -171,6 +668,76 @@ public class MyBenchmark {
         }
     }
 
+    @Benchmark
+    public void testGetYearWideRange_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = wideInstants[i].atZone(ZoneOffset.UTC).getYear();
+        }
+    }
+
+    @Benchmark
+    public void testGetYearWideRange_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.getYear(wideTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetYearMixedSign_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = mixedSignInstants[i].atZone(ZoneOffset.UTC).getYear();
+        }
+    }
+
+    @Benchmark
+    public void testGetYearMixedSign_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.getYear(mixedSignTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetHourMixedSign_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = mixedSignInstants[i].atZone(ZoneOffset.UTC).getHour();
+        }
+    }
+
+    @Benchmark
+    public void testGetHourMixedSign_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.getHour(mixedSignTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysMixedSign_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = mixedSignInstants[i].truncatedTo(ChronoUnit.DAYS);
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysMixedSign_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.truncateToDays(mixedSignTimestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToStringMixedSign_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = mixedSignInstants[i].toString();
+        }
+    }
+
+    @Benchmark
+    public void testToStringMixedSign_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = TimeMillis.toIsoString(mixedSignTimestamps[i]);
+        }
+    }
+
     @Benchmark
     public void testGetMonth_Instant() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -199,6 +766,143 @@ public class MyBenchmark {
         }
     }
 
+    @Benchmark
+    public void testBucket5Minutes_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].truncatedTo(ChronoUnit.MINUTES).minus(instants[i].atZone(ZoneOffset.UTC).getMinute() % 5, ChronoUnit.MINUTES);
+        }
+    }
+
+    @Benchmark
+    public void testBucket5Minutes_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.truncateToMinutes(timestamps[i], 5);
+        }
+    }
+
+    @Benchmark
+    public void testBucket5Minutes_Bucketer() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = fiveMinutes.truncate(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testBucketMinutes_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.truncateToMinutes(timestamps[i], bucketMinutes);
+        }
+    }
+
+    @Benchmark
+    public void testBucketMinutes_Bucketer() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = minutes.truncate(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testBucketIndexes5Minutes_TimeMillis() {
+        final long first = TimeMillis.truncateToMinutes(0, 5);
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = (int) ((TimeMillis.truncateToMinutes(timestamps[i], 5) - first) / (5 * 60_000));
+        }
+    }
+
+    @Benchmark
+    public void testBucketIndexes5Minutes_Bucketer() {
+        fiveMinutes.bucketIndexes(0, timestamps, intsRet);
+    }
+
+    @Benchmark
+    public void testBucketQuarter_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            ZonedDateTime date = instants[i].atZone(ZoneOffset.UTC);
+            instantsRet[i] = date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1)
+                    .withMonth((date.getMonthValue() - 1) / 3 * 3 + 1).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testBucketQuarter_Bucketer() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = quarters.truncate(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testPlusMonths_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].atZone(ZoneOffset.UTC).plusMonths(i % 25 - 12).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testPlusMonths_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.plusMonths(timestamps[i], i % 25 - 12);
+        }
+    }
+
+    @Benchmark
+    public void testPlusYears_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].atZone(ZoneOffset.UTC).plusYears(i % 11 - 5).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testPlusYears_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.plusYears(timestamps[i], i % 11 - 5);
+        }
+    }
+
+    @Benchmark
+    public void testMonthsBetween_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = (int) ChronoUnit.MONTHS.between(instants[i].atZone(ZoneOffset.UTC),
+                    instants[ITERATIONS - 1 - i].atZone(ZoneOffset.UTC));
+        }
+    }
+
+    @Benchmark
+    public void testMonthsBetween_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.monthsBetween(timestamps[i], timestamps[ITERATIONS - 1 - i]);
+        }
+    }
+
+    @Benchmark
+    public void testStartOfWeek_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS)
+                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testStartOfWeek_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.startOfWeek(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testEndOfMonth_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS)
+                    .with(TemporalAdjusters.firstDayOfNextMonth()).toInstant().minusMillis(1);
+        }
+    }
+
+    @Benchmark
+    public void testEndOfMonth_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.endOfMonth(timestamps[i]);
+        }
+    }
+
     @Benchmark
     public void testGetMonthDay_Instant() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -242,6 +946,48 @@ public class MyBenchmark {
         }
     }
 
+    @Benchmark
+    public void testGetHourZoned_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = instants[i].atZone(zone).getHour();
+        }
+    }
+
+    @Benchmark
+    public void testGetHourZoned_TimeMillisZone() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = timeMillisZone.getHour(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysZoned_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].atZone(zone).truncatedTo(ChronoUnit.DAYS).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysZoned_TimeMillisZone() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = timeMillisZone.truncateToDays(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToStringZoned_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = instants[i].atZone(zone).toOffsetDateTime().toString();
+        }
+    }
+
+    @Benchmark
+    public void testToStringZoned_TimeMillisZone() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timeStrsRet[i] = timeMillisZone.toIsoString(timestamps[i]);
+        }
+    }
+
     @Benchmark
     public void testOf_Instant() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -258,6 +1004,22 @@ public class MyBenchmark {
         }
     }
 
+    @Benchmark
+    public void testOfWideRange_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int j = ((int)timestamps[i] & 0x7) + 1;
+            instantsRet[i] = OffsetDateTime.of(wideYears[i], j, j, j, j, j, j * 1000_0000, ZoneOffset.UTC).toInstant();
+        }
+    }
+
+    @Benchmark
+    public void testOfWideRange_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int j = ((int)timestamps[i] & 0x7) + 1;
+            timestampsRet[i] = TimeMillis.of(wideYears[i], j, j, j, j, j, j);
+        }
+    }
+
     @Benchmark
     public void testCurrentTimeMillis_System() {
         for (int i = 0; i < ITERATIONS; i++) {
@@ -271,4 +1033,67 @@ public class MyBenchmark {
             instantsRet[i] = Instant.now();
         }
     }
+
+    @Benchmark
+    public void testLocalDateTimeToMillis_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = localDateTimes[i].toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+    }
+
+    @Benchmark
+    public void testLocalDateTimeToMillis_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillisInterop.toMillis(localDateTimes[i]);
+        }
+    }
+
+    @Benchmark
+    public void testToLocalDate_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            localDatesRet[i] = Instant.ofEpochMilli(timestamps[i]).atOffset(ZoneOffset.UTC).toLocalDate();
+        }
+    }
+
+    @Benchmark
+    public void testToLocalDate_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            localDatesRet[i] = TimeMillisInterop.toLocalDate(timestamps[i]);
+        }
+    }
+
+    // the events of a few recent days, as a service logging around now sees them
+    @Benchmark
+    public void testToLocalDateRecent_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            localDatesRet[i] = Instant.ofEpochMilli(timestamps[i] & 0xFFFFFFF).atOffset(ZoneOffset.UTC).toLocalDate();
+        }
+    }
+
+    @Benchmark
+    public void testToLocalDateRecent_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            localDatesRet[i] = TimeMillisInterop.toLocalDate(timestamps[i] & 0xFFFFFFF);
+        }
+    }
+
+    @Benchmark
+    public int testFormatInstant_Instant() {
+        int length = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            String str = nanoInstants[i].toString();
+            str.getChars(0, str.length(), isoCharsRet, 0);
+            length += str.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int testFormatInstant_TimeMillis() {
+        int length = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            length += TimeMillisInterop.formatIso(nanoInstants[i], isoCharsRet, 0);
+        }
+        return length;
+    }
 }
@@ -0,0 +1,72 @@
+package io.github.williame;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import io.github.williame.timemillis.TimeMillis;
+import io.github.williame.timemillis.TimeMillisParallel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Converting a backfill's worth of timestamps on 1 to N cores; the scores are per timestamp
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(ParallelBenchmark.COUNT)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class ParallelBenchmark {
+
+    public static final int COUNT = 4_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    ForkJoinPool pool;
+    long[] timestamps = new long[COUNT], timestampsRet = new long[COUNT];
+    int[] daysRet = new int[COUNT];
+    byte[] lines = new byte[COUNT * TimeMillisParallel.LINE_LENGTH], linesRet = new byte[lines.length];
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+        Random random = new Random();
+        for (int i = 0; i < COUNT; i++) {
+            timestamps[i] = TimeMillis.nextRandomTimestamp(random, 0, TimeMillis.of(2038, 1, 19));
+        }
+        TimeMillisParallel.formatIsoLines(timestamps, 0, lines, 0, COUNT, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void testFormatIsoLines() {
+        TimeMillisParallel.formatIsoLines(timestamps, 0, linesRet, 0, COUNT, pool);
+    }
+
+    @Benchmark
+    public int testParseLines() {
+        return TimeMillisParallel.parseLines(lines, 0, lines.length, timestampsRet, 0, pool);
+    }
+
+    @Benchmark
+    public void testToDayOfEpoch() {
+        TimeMillisParallel.toDayOfEpoch(timestamps, 0, daysRet, 0, COUNT, pool);
+    }
+}
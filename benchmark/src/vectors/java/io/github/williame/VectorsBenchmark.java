@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package io.github.williame;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.github.williame.timemillis.TimeMillis;
+import io.github.williame.timemillis.TimeMillisVectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Whole columns at a time, against the per-timestamp loops of MyBenchmark
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+@OperationsPerInvocation(MyBenchmark.ITERATIONS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 2)
+public class VectorsBenchmark {
+
+    static final int ITERATIONS = MyBenchmark.ITERATIONS;
+
+    long[] timestamps, timestampsRet;
+    Instant[] instants, instantsRet;
+    int[] intsRet;
+
+    @Setup
+    public void setup() {
+        Random random = new Random();
+        timestamps = new long[ITERATIONS];
+        instants = new Instant[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            // 1901 to 2038, half of them before the epoch
+            timestamps[i] = TimeMillis.nextRandomTimestamp(random, -MyBenchmark.EPOCH_32BIT_END, MyBenchmark.EPOCH_32BIT_END);
+            instants[i] = Instant.ofEpochMilli(timestamps[i]);
+        }
+        timestampsRet = new long[ITERATIONS];
+        instantsRet = new Instant[ITERATIONS];
+        intsRet = new int[ITERATIONS];
+    }
+
+    @Benchmark
+    public void testGetYearColumn_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = instants[i].atZone(ZoneOffset.UTC).getYear();
+        }
+    }
+
+    @Benchmark
+    public void testGetYearColumn_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.getYear(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetYearColumn_TimeMillisVectors() {
+        TimeMillisVectors.getYear(timestamps, intsRet);
+    }
+
+    @Benchmark
+    public void testGetHourColumn_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = instants[i].atZone(ZoneOffset.UTC).getHour();
+        }
+    }
+
+    @Benchmark
+    public void testGetHourColumn_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.getHour(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testGetHourColumn_TimeMillisVectors() {
+        TimeMillisVectors.getHour(timestamps, intsRet);
+    }
+
+    @Benchmark
+    public void testDayOfWeekColumn_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = instants[i].atZone(ZoneOffset.UTC).getDayOfWeek().getValue();
+        }
+    }
+
+    @Benchmark
+    public void testDayOfWeekColumn_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            intsRet[i] = TimeMillis.dayOfWeek(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testDayOfWeekColumn_TimeMillisVectors() {
+        TimeMillisVectors.dayOfWeek(timestamps, intsRet);
+    }
+
+    @Benchmark
+    public void testTruncateDaysColumn_Instant() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            instantsRet[i] = instants[i].truncatedTo(ChronoUnit.DAYS);
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysColumn_TimeMillis() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            timestampsRet[i] = TimeMillis.truncateToDays(timestamps[i]);
+        }
+    }
+
+    @Benchmark
+    public void testTruncateDaysColumn_TimeMillisVectors() {
+        TimeMillisVectors.truncateToDays(timestamps, timestampsRet);
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.williame.timemillis;
+
+/**
+ * Maps timestamps as epoch millis to numbered buckets of time, as time-series rollups do for
+ * every event: buckets of any fixed width counted from an origin, or of whole calendar months
+ * (so also quarters and years) in UTC.  Bucket 0 is the one starting at the origin and the
+ * buckets before it are negative.
+ * <p>
+ * Fixed widths are a plain Math.floorDiv by the width.  Multiplying by a precomputed reciprocal
+ * or magic number instead measured slower than the divide on Java 8, which has no
+ * Math.multiplyHigh to take the high half of the product.
+ * <p>
+ * Instances are immutable and thread-safe; build one per rollup and keep it.
+ */
+public final class Bucketer {
+
+    private final long width, origin;
+    // elapsed months per bucket, or 0 for fixed widths
+    private final int months;
+    private final int originMonth;
+
+    // Fixed width buckets
+    private Bucketer(long width, long origin) {
+        this.width = width;
+        this.origin = origin;
+        this.months = 0;
+        this.originMonth = 0;
+    }
+
+    // Calendar months; origin is the start of a month
+    private Bucketer(long origin, int months) {
+        this.width = 0;
+        this.origin = origin;
+        this.months = months;
+        this.originMonth = elapsedMonths(TimeMillis.dayOfEpoch(origin));
+    }
+
+    // Buckets of width millis, one of which starts at origin
+    public static Bucketer ofMillis(long width, long origin) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive: " + width);
+        }
+        return new Bucketer(width, origin);
+    }
+
+    public static Bucketer ofMillis(long width) {
+        return ofMillis(width, 0);
+    }
+
+    public static Bucketer ofMinutes(int minutes) {
+        return ofMillis(minutes * MILLIS_IN_MINUTE);
+    }
+
+    public static Bucketer ofHours(int hours) {
+        return ofMillis(hours * MILLIS_IN_HOUR);
+    }
+
+    public static Bucketer ofDays(int days) {
+        return ofMillis(days * MILLIS_IN_DAY);
+    }
+
+    // Weeks starting on Mondays, following the ISO-8601 standard
+    public static Bucketer ofWeeks(int weeks) {
+        return ofMillis(weeks * MILLIS_IN_WEEK, FIRST_MONDAY);
+    }
+
+    // Calendar months, counted from the month of origin; e.g. ofMonths(12, TimeMillis.of(2000, 4, 1)) for years
+    // starting in April
+    public static Bucketer ofMonths(int months, long origin) {
+        if (months <= 0) {
+            throw new IllegalArgumentException("months must be positive: " + months);
+        }
+        return new Bucketer(TimeMillis.truncateToMonths(origin), months);
+    }
+
+    public static Bucketer ofMonths(int months) {
+        return ofMonths(months, 0);
+    }
+
+    public static Bucketer ofQuarters() {
+        return ofMonths(3);
+    }
+
+    public static Bucketer ofYears() {
+        return ofMonths(12);
+    }
+
+    // The number of the bucket the timestamp falls in
+    public long bucket(long timestamp) {
+        if (months > 0) {
+            return Math.floorDiv(elapsedMonths(TimeMillis.dayOfEpoch(timestamp)) - originMonth, months);
+        }
+        return Math.floorDiv(timestamp - origin, width);
+    }
+
+    // The first millisecond of the bucket
+    public long startOfBucket(long bucket) {
+        if (months > 0) {
+            final int elapsedMonths = originMonth + (int) bucket * months;
+            return TimeMillis.of(Math.floorDiv(elapsedMonths, 12), Math.floorMod(elapsedMonths, 12) + 1, 1);
+        }
+        return origin + bucket * width;
+    }
+
+    // The first millisecond of the bucket the timestamp falls in
+    public long truncate(long timestamp) {
+        return startOfBucket(bucket(timestamp));
+    }
+
+    public void bucketIndexes(long from, long[] in, int[] out) {
+        bucketIndexes(from, in, 0, out, 0, in.length);
+    }
+
+    /**
+     * Sets out[outOffset + i] to the bucket of in[inOffset + i] counted from the bucket of from, so
+     * that the buckets from there on can index a dense array of aggregates; timestamps before from
+     * get negative indexes, and they must all be within an int of buckets of it.
+     */
+    public void bucketIndexes(long from, long[] in, int inOffset, int[] out, int outOffset, int count) {
+        TimeMillis.checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        final long first = bucket(from);
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = (int) (bucket(in[inOffset + i]) - first);
+        }
+    }
+
+    // The width of fixed buckets in millis, or 0 for calendar months
+    public long getWidth() {
+        return width;
+    }
+
+    // The number of calendar months in each bucket, or 0 for fixed widths
+    public int getMonths() {
+        return months;
+    }
+
+    public long getOrigin() {
+        return origin;
+    }
+
+    // Months since 0000-01
+    private static int elapsedMonths(int dayOfEpoch) {
+        final int yearAndDays = TimeMillis.toYearAndDays(dayOfEpoch);
+        return (yearAndDays >> 9) * 12 + (TimeMillis.toMonthAndDays(yearAndDays) >> 5);
+    }
+
+    private static final long
+            MILLIS_IN_MINUTE = 60 * 1000,
+            MILLIS_IN_HOUR = MILLIS_IN_MINUTE * 60,
+            MILLIS_IN_DAY = MILLIS_IN_HOUR * 24,
+            MILLIS_IN_WEEK = MILLIS_IN_DAY * 7,
+            FIRST_MONDAY = 4 * MILLIS_IN_DAY; // 1970-01-05
+}
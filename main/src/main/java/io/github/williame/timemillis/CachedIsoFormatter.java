@@ -0,0 +1,90 @@
+package io.github.williame.timemillis;
+
+/**
+ * Formats timestamps exactly like {@link TimeMillis#toIsoString(long)}, but remembers the
+ * yyyy-MM-ddTHH:mm:ss prefix of the most recent second so that a nearly monotonic stream,
+ * e.g. log lines stamped with System.currentTimeMillis(), only has to render the millis.
+ * <p>
+ * Instances are thread-safe and meant to be shared.  Each second is published as an
+ * immutable snapshot through a volatile field, so racing threads at worst format the same
+ * second more than once; there are no locks.
+ */
+public final class CachedIsoFormatter {
+
+    private volatile Second current = new Second(0);
+
+    public String toIsoString(long timestamp) {
+        char[] chars = new char[24];
+        return new String(chars, 0, formatIso(timestamp, chars, 0));
+    }
+
+    // Appends the cached prefix and then the millis, so nothing is allocated unless the builder grows
+    public StringBuilder toIsoString(long timestamp, StringBuilder out) {
+        final long secs = TimeMillis.floorDiv(timestamp, MILLIS);
+        final Second second = lookup(secs);
+        final int millis = (int) (timestamp - secs * MILLIS);
+        out.append(second.chars, 0, PREFIX_LENGTH);
+        if (millis > 0) {
+            out.append('.')
+                    .append((char) ('0' + millis / 100))
+                    .append((char) ('0' + millis / 10 % 10))
+                    .append((char) ('0' + millis % 10));
+        }
+        return out.append('Z');
+    }
+
+    public int formatIso(long timestamp, char[] dst, int off) {
+        final long secs = TimeMillis.floorDiv(timestamp, MILLIS);
+        final Second second = lookup(secs);
+        final int millis = (int) (timestamp - secs * MILLIS);
+        System.arraycopy(second.chars, 0, dst, off, PREFIX_LENGTH);
+        off += PREFIX_LENGTH;
+        if (millis > 0) {
+            dst[off] = '.';
+            TimeSecs.emit3(dst, off + 1, millis);
+            off += 4;
+        }
+        dst[off++] = 'Z';
+        return off;
+    }
+
+    public int formatIso(long timestamp, byte[] dst, int off) {
+        final long secs = TimeMillis.floorDiv(timestamp, MILLIS);
+        final Second second = lookup(secs);
+        final int millis = (int) (timestamp - secs * MILLIS);
+        System.arraycopy(second.bytes, 0, dst, off, PREFIX_LENGTH);
+        off += PREFIX_LENGTH;
+        if (millis > 0) {
+            dst[off] = '.';
+            TimeSecs.emit3(dst, off + 1, millis);
+            off += 4;
+        }
+        dst[off++] = 'Z';
+        return off;
+    }
+
+    private Second lookup(long secs) {
+        Second second = current;
+        if (second.secs != secs) {
+            current = second = new Second(secs);
+        }
+        return second;
+    }
+
+    private static final class Second {
+        final long secs;
+        final char[] chars = new char[PREFIX_LENGTH];
+        final byte[] bytes = new byte[PREFIX_LENGTH];
+
+        Second(long secs) {
+            this.secs = secs;
+            TimeSecs.doToDateTime(chars, 0, secs, 0, 'T');
+            for (int i = 0; i < PREFIX_LENGTH; i++) {
+                bytes[i] = (byte) chars[i];
+            }
+        }
+    }
+
+    private static final int PREFIX_LENGTH = 19;
+    private static final long MILLIS = 1000;
+}
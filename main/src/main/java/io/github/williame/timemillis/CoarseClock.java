@@ -0,0 +1,128 @@
+package io.github.williame.timemillis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The current time to a given precision, e.g. for stamping events on a hot path that reads the
+ * clock several times per request.  Each tick is published as an immutable snapshot through a
+ * volatile field, together with its ISO string and the start of its day and hour, so those cost
+ * nothing to read either.
+ * <p>
+ * A ticking clock has a daemon thread that publishes a new tick every precision millis, so
+ * reading it is a single volatile read however many threads share it; close it to stop the
+ * thread.  Whether the clock is lazy is part of each tick, so closing needs no second read.
+ * <p>
+ * A lazy clock has no thread and still reads System.currentTimeMillis() each time, only making a
+ * new tick when the time has moved on by the precision; it saves formatting and truncating, not
+ * the clock read.
+ * <p>
+ * Instances are thread-safe and meant to be shared.
+ */
+public final class CoarseClock implements AutoCloseable {
+
+    private final long precision;
+    private final Thread ticker;
+    private volatile Tick current;
+    private volatile boolean closed;
+
+    private CoarseClock(long precision, boolean ticking) {
+        if (precision <= 0) {
+            throw new IllegalArgumentException("precision must be positive: " + precision);
+        }
+        this.precision = precision;
+        this.current = new Tick(System.currentTimeMillis(), precision, !ticking);
+        if (ticking) {
+            ticker = new Thread(this::runTicker, "CoarseClock-" + precision + "ms");
+            ticker.setDaemon(true);
+            ticker.start();
+        } else {
+            ticker = null;
+        }
+    }
+
+    // A clock with a daemon thread that publishes a new tick every precision millis
+    public static CoarseClock ticking(long precisionMillis) {
+        return new CoarseClock(precisionMillis, true);
+    }
+
+    // A clock that makes a new tick when read after the time has moved on by the precision
+    public static CoarseClock lazy(long precisionMillis) {
+        return new CoarseClock(precisionMillis, false);
+    }
+
+    // The current time rounded down to the precision
+    public long millis() {
+        return tick().millis;
+    }
+
+    // millis() as TimeMillis.toIsoString would write it
+    public String isoString() {
+        return tick().isoString;
+    }
+
+    // The first millisecond of the current day
+    public long day() {
+        return tick().day;
+    }
+
+    // The first millisecond of the current hour
+    public long hour() {
+        return tick().hour;
+    }
+
+    public long getPrecision() {
+        return precision;
+    }
+
+    // Stops the ticker thread, after which the clock is lazy
+    @Override
+    public void close() {
+        closed = true;
+        if (ticker != null) {
+            // the ticker publishes a lazy tick again as it stops, after any tick it was about to publish
+            current = new Tick(System.currentTimeMillis(), precision, true);
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private Tick tick() {
+        Tick tick = current;
+        if (tick.lazy) {
+            final long now = System.currentTimeMillis();
+            // also when the system clock has gone back
+            if (now - tick.millis >= precision || now < tick.millis) {
+                current = tick = new Tick(now, precision, true);
+            }
+        }
+        return tick;
+    }
+
+    private void runTicker() {
+        while (!closed) {
+            final long now = System.currentTimeMillis();
+            if (now - current.millis >= precision || now < current.millis) {
+                current = new Tick(now, precision, false);
+            }
+            // until the next tick is due
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(precision - Math.floorMod(now, precision)));
+        }
+        // the last tick published, so readers go on lazily
+        current = new Tick(System.currentTimeMillis(), precision, true);
+    }
+
+    private static final class Tick {
+        final long millis, day, hour;
+        final String isoString;
+        // whether readers make the next tick themselves
+        final boolean lazy;
+
+        Tick(long now, long precision, boolean lazy) {
+            this.lazy = lazy;
+            this.millis = now - Math.floorMod(now, precision);
+            this.day = TimeMillis.truncateToDays(millis);
+            this.hour = TimeMillis.truncateToHours(millis);
+            this.isoString = TimeMillis.toIsoString(millis);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package io.github.williame.timemillis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Strict ISO-8601 / RFC 3339 parser into epoch millis, micros or nanos.
+ * <p>
+ * Accepts calendar (yyyy-MM-dd), ordinal (yyyy-DDD) and week (yyyy-Www-D) dates in the extended form
+ * or the basic form without separators, optionally followed by 'T', 't' or a space and a time of
+ * HH[:mm[:ss[.fraction]]] with 1 to 9 fraction digits after a '.' or ','.  The time may end with 'Z',
+ * 'z' or an offset of +HH[:mm] or -HH[:mm]; no offset means UTC.  Basic and extended forms may not be
+ * mixed within one timestamp.  Fractions finer than the result are truncated.
+ * <p>
+ * Malformed or out of range input returns INVALID rather than throwing, so dirty feeds cost no more
+ * than clean ones; the errors overloads also say which field was wrong.  The fixed
+ * yyyy-MM-ddTHH:mm:ss.SSSZ layout takes the same word-at-a-time fast path as
+ * {@link TimeMillis#parse(CharSequence)}.
+ * <p>
+ * The general parser is written once, over char[].  Other inputs are first copied into a per-thread
+ * char[], bytes read unsigned, so the parser reads one kind of array whatever the caller passed.
+ */
+public final class IsoParser {
+
+    public static final long INVALID = Long.MIN_VALUE;
+
+    // Why a timestamp was INVALID, as stored by the overloads that take an errors array
+    public static final int
+            OK = 0,
+            ERROR_SYNTAX = 1, // not laid out as ISO-8601, or digits missing
+            ERROR_MONTH = 2,
+            ERROR_DAY = 3, // day of the month, ordinal day, week or day of the week
+            ERROR_HOUR = 4,
+            ERROR_MINUTE = 5,
+            ERROR_SECOND = 6,
+            ERROR_FRACTION = 7, // no digits or more than nine
+            ERROR_OFFSET = 8,
+            ERROR_RANGE = 9; // valid fields but an instant outside 0000 to 9999, or the nanos range
+
+    private IsoParser() {}
+
+    public static long parseMillis(CharSequence timestamp) {
+        return parseMillis(timestamp, 0, timestamp.length());
+    }
+
+    public static long parseMillis(CharSequence timestamp, int begin, int end) {
+        return parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    // Also stores OK, or one of the ERROR_ codes saying why it was INVALID, in errors[errorIndex]
+    public static long parseMillis(CharSequence timestamp, int begin, int end, int[] errors, int errorIndex) {
+        final long parsed = TimeMillis.parseIso(timestamp, begin, end);
+        if (parsed != TimeMillis.NOT_ISO) {
+            return valid(errors, errorIndex, parsed);
+        }
+        return parse(timestamp, begin, end, MILLIS, errors, errorIndex);
+    }
+
+    public static long parseMillis(char[] timestamp, int begin, int end) {
+        return parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    public static long parseMillis(char[] timestamp, int begin, int end, int[] errors, int errorIndex) {
+        final long parsed = TimeMillis.parseIso(timestamp, begin, end);
+        if (parsed != TimeMillis.NOT_ISO) {
+            return valid(errors, errorIndex, parsed);
+        }
+        return parse(timestamp, begin, end, MILLIS, errors, errorIndex);
+    }
+
+    public static long parseMillis(byte[] timestamp, int begin, int end) {
+        return parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    public static long parseMillis(byte[] timestamp, int begin, int end, int[] errors, int errorIndex) {
+        final long parsed = TimeMillis.parseIso(timestamp, begin, end);
+        if (parsed != TimeMillis.NOT_ISO) {
+            return valid(errors, errorIndex, parsed);
+        }
+        return parse(timestamp, begin, end, MILLIS, errors, errorIndex);
+    }
+
+    // Uses absolute gets so the buffer's position is left alone
+    public static long parseMillis(ByteBuffer timestamp, int pos, int len) {
+        return parseMillis(timestamp, pos, len, null, 0);
+    }
+
+    public static long parseMillis(ByteBuffer timestamp, int pos, int len, int[] errors, int errorIndex) {
+        final long parsed = TimeMillis.parseIso(timestamp, pos, pos + len);
+        if (parsed != TimeMillis.NOT_ISO) {
+            return valid(errors, errorIndex, parsed);
+        }
+        return parse(timestamp, pos, pos + len, MILLIS, errors, errorIndex);
+    }
+
+    public static long parseMicros(CharSequence timestamp) {
+        return parse(timestamp, 0, timestamp.length(), MICROS, null, 0);
+    }
+
+    public static long parseMicros(CharSequence timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, MICROS, null, 0);
+    }
+
+    public static long parseMicros(char[] timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, MICROS, null, 0);
+    }
+
+    public static long parseMicros(byte[] timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, MICROS, null, 0);
+    }
+
+    public static long parseMicros(ByteBuffer timestamp, int pos, int len) {
+        return parse(timestamp, pos, pos + len, MICROS, null, 0);
+    }
+
+    // Epoch nanos only reach from 1677-09-21 to 2262-04-11; anything outside is INVALID
+    public static long parseNanos(CharSequence timestamp) {
+        return parse(timestamp, 0, timestamp.length(), NANOS, null, 0);
+    }
+
+    public static long parseNanos(CharSequence timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, NANOS, null, 0);
+    }
+
+    public static long parseNanos(char[] timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, NANOS, null, 0);
+    }
+
+    public static long parseNanos(byte[] timestamp, int begin, int end) {
+        return parse(timestamp, begin, end, NANOS, null, 0);
+    }
+
+    public static long parseNanos(ByteBuffer timestamp, int pos, int len) {
+        return parse(timestamp, pos, pos + len, NANOS, null, 0);
+    }
+
+    static long parse(CharSequence s, int begin, int end, long unitsPerSecond, int[] errors, int errorIndex) {
+        return parseText(s, begin, end, unitsPerSecond, errors, errorIndex);
+    }
+
+    static long parse(char[] s, int begin, int end, long unitsPerSecond, int[] errors, int errorIndex) {
+        return parseText(s, begin, end, unitsPerSecond, errors, errorIndex);
+    }
+
+    static long parse(byte[] s, int begin, int end, long unitsPerSecond, int[] errors, int errorIndex) {
+        return parseText(s, begin, end, unitsPerSecond, errors, errorIndex);
+    }
+
+    static long parse(ByteBuffer s, int begin, int end, long unitsPerSecond, int[] errors, int errorIndex) {
+        return parseText(s, begin, end, unitsPerSecond, errors, errorIndex);
+    }
+
+    /**
+     * The general parser, reading s in place through charAt so it is written once for every input kind.
+     * Returns the instant as a count of 1/unitsPerSecond since the epoch, or INVALID after storing why in
+     * errors[errorIndex] when errors isn't null.
+     */
+    static long parseText(Object s, int begin, int end, long unitsPerSecond, int[] errors, int errorIndex) {
+        if (begin < 0 || end < begin) {
+            return invalid(errors, errorIndex, ERROR_SYNTAX);
+        }
+        int pos = begin;
+        final int year = digits(s, pos, end, 4);
+        if (year < 0) {
+            return invalid(errors, errorIndex, ERROR_SYNTAX);
+        }
+        pos += 4;
+        final boolean extended = pos < end && charAt(s, pos) == '-';
+        if (extended) {
+            pos++;
+        }
+
+        // the date, as days since the epoch
+        final int day;
+        if (pos < end && charAt(s, pos) == 'W') {
+            final int week = digits(s, pos + 1, end, 2);
+            pos += 3;
+            int dayOfWeek = 1;
+            if (extended? pos < end && charAt(s, pos) == '-': pos < end && isDigit(charAt(s, pos))) {
+                pos += extended? 1: 0;
+                dayOfWeek = digits(s, pos, end, 1);
+                pos++;
+            }
+            if ((week | dayOfWeek) < 0) {
+                return invalid(errors, errorIndex, ERROR_SYNTAX);
+            } else if (week < 1 || week > weeksInYear(year) || dayOfWeek < 1 || dayOfWeek > 7) {
+                return invalid(errors, errorIndex, ERROR_DAY);
+            }
+            day = firstDayOfWeekYear(year) + (week - 1) * 7 + dayOfWeek - 1;
+        } else {
+            int run = pos;
+            while (run < end && isDigit(charAt(s, run))) {
+                run++;
+            }
+            if (run - pos == 3 && (run == end || !extended || charAt(s, run) != '-')) {
+                final int dayOfYear = digits(s, pos, end, 3);
+                if (dayOfYear < 1 || dayOfYear > (TimeMillis.isLeapYear(year)? 366: 365)) {
+                    return invalid(errors, errorIndex, ERROR_DAY);
+                }
+                day = TimeMillis.daysToYear(year) + dayOfYear - 1;
+                pos = run;
+            } else {
+                final int month = digits(s, pos, end, 2);
+                pos += extended? 3: 2;
+                if (extended && (pos > end || charAt(s, pos - 1) != '-')) {
+                    return invalid(errors, errorIndex, ERROR_SYNTAX);
+                }
+                final int dayOfMonth = digits(s, pos, end, 2);
+                pos += 2;
+                if ((month | dayOfMonth) < 0) {
+                    return invalid(errors, errorIndex, ERROR_SYNTAX);
+                } else if (month < 1 || month > 12) {
+                    return invalid(errors, errorIndex, ERROR_MONTH);
+                } else if (dayOfMonth < 1 || dayOfMonth > TimeMillis.lengthOfMonth(year, month)) {
+                    return invalid(errors, errorIndex, ERROR_DAY);
+                }
+                day = TimeMillis.dayOfEpoch(year, month, dayOfMonth);
+            }
+        }
+
+        // the time of day
+        int secondOfDay = 0, fraction = 0;
+        if (pos < end) {
+            final int sep = charAt(s, pos);
+            if (sep != 'T' && sep != 't' && sep != ' ') {
+                return invalid(errors, errorIndex, ERROR_SYNTAX);
+            }
+            final int hour = digits(s, pos + 1, end, 2);
+            pos += 3;
+            int minute = 0, second = 0;
+            if (hasField(s, pos, end, extended)) {
+                pos += extended? 1: 0;
+                minute = digits(s, pos, end, 2);
+                pos += 2;
+                if (hasField(s, pos, end, extended)) {
+                    pos += extended? 1: 0;
+                    second = digits(s, pos, end, 2);
+                    pos += 2;
+                    if (pos < end && (charAt(s, pos) == '.' || charAt(s, pos) == ',')) {
+                        int digits = 0;
+                        while (++pos < end && isDigit(charAt(s, pos)) && digits < 9) {
+                            fraction = fraction * 10 + charAt(s, pos) - '0';
+                            digits++;
+                        }
+                        if (digits == 0 || (pos < end && isDigit(charAt(s, pos)))) {
+                            return invalid(errors, errorIndex, ERROR_FRACTION);
+                        }
+                        fraction *= POWERS_OF_TEN[9 - digits];
+                    }
+                }
+            }
+            if ((hour | minute | second) < 0) {
+                return invalid(errors, errorIndex, ERROR_SYNTAX);
+            } else if (hour > 23) {
+                return invalid(errors, errorIndex, ERROR_HOUR);
+            } else if (minute > 59) {
+                return invalid(errors, errorIndex, ERROR_MINUTE);
+            } else if (second > 59) {
+                return invalid(errors, errorIndex, ERROR_SECOND);
+            }
+            secondOfDay = hour * SECS_IN_HOUR + minute * SECS_IN_MINUTE + second;
+        } else if (pos > end) {
+            return invalid(errors, errorIndex, ERROR_SYNTAX);
+        }
+
+        // the offset from UTC, if any
+        int offset = 0;
+        if (pos < end) {
+            final int sign = charAt(s, pos);
+            if (sign == 'Z' || sign == 'z') {
+                pos++;
+            } else if (sign == '+' || sign == '-') {
+                final int hours = digits(s, pos + 1, end, 2);
+                pos += 3;
+                int minutes = 0;
+                if (hasField(s, pos, end, extended)) {
+                    pos += extended? 1: 0;
+                    minutes = digits(s, pos, end, 2);
+                    pos += 2;
+                }
+                if ((hours | minutes) < 0) {
+                    return invalid(errors, errorIndex, ERROR_SYNTAX);
+                } else if (hours > 18 || minutes > 59) {
+                    return invalid(errors, errorIndex, ERROR_OFFSET);
+                }
+                offset = (hours * SECS_IN_HOUR + minutes * SECS_IN_MINUTE) * (sign == '-'? -1: 1);
+            } else {
+                return invalid(errors, errorIndex, ERROR_SYNTAX);
+            }
+        }
+        if (pos != end) {
+            return invalid(errors, errorIndex, ERROR_SYNTAX);
+        }
+
+        final long secs = (long) day * SECS_IN_DAY + secondOfDay - offset;
+        if (secs < MIN_SECS || secs > MAX_SECS ||
+                (unitsPerSecond == NANOS && (secs < MIN_NANOS_SECS || secs > MAX_NANOS_SECS))) {
+            return invalid(errors, errorIndex, ERROR_RANGE);
+        }
+        return valid(errors, errorIndex, secs * unitsPerSecond + fraction / (int) (NANOS / unitsPerSecond));
+    }
+
+    private static long valid(int[] errors, int errorIndex, long parsed) {
+        if (errors != null) {
+            errors[errorIndex] = OK;
+        }
+        return parsed;
+    }
+
+    private static long invalid(int[] errors, int errorIndex, int error) {
+        if (errors != null) {
+            errors[errorIndex] = error;
+        }
+        return INVALID;
+    }
+
+    // Whether another time field follows: a ':' in the extended form, or straight into a digit in the basic
+    private static boolean hasField(Object s, int pos, int end, boolean extended) {
+        return pos < end && (extended? charAt(s, pos) == ':': isDigit(charAt(s, pos)));
+    }
+
+    // The count digits at pos as a number, or -1 if they aren't all there
+    static int digits(Object s, int pos, int end, int count) {
+        if (pos + count > end) {
+            return -1;
+        }
+        int ret = 0;
+        for (int i = pos; i < pos + count; i++) {
+            final int digit = charAt(s, i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            ret = ret * 10 + digit;
+        }
+        return ret;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * s[i] of a char[], byte[], ByteBuffer (by absolute get) or CharSequence, so the parsers read every
+     * input kind where it lies.  Bytes are read unsigned, so non-ASCII never looks like a digit or
+     * separator.
+     */
+    static int charAt(Object s, int i) {
+        if (s instanceof char[]) {
+            return ((char[]) s)[i];
+        } else if (s instanceof byte[]) {
+            return ((byte[]) s)[i] & 0xff;
+        } else if (s instanceof ByteBuffer) {
+            return ((ByteBuffer) s).get(i) & 0xff;
+        }
+        return ((CharSequence) s).charAt(i);
+    }
+
+    // Days from 1970-01-01 to the Monday of ISO week 1, which is the week holding the 4th of January
+    private static int firstDayOfWeekYear(int year) {
+        final int jan4 = TimeMillis.daysToYear(year) + 3;
+        return jan4 - Math.floorMod(jan4 + 3, 7);
+    }
+
+    // Years starting on a Thursday, or leap years starting on a Wednesday, have 53 ISO weeks
+    private static int weeksInYear(int year) {
+        final int jan1 = Math.floorMod(TimeMillis.daysToYear(year) + 3, 7); // 0 is Monday
+        return jan1 == 3 || (jan1 == 2 && TimeMillis.isLeapYear(year))? 53: 52;
+    }
+
+    private static final int
+            SECS_IN_MINUTE = 60,
+            SECS_IN_HOUR = SECS_IN_MINUTE * 60,
+            SECS_IN_DAY = SECS_IN_HOUR * 24;
+    private static final long
+            MILLIS = 1000,
+            MICROS = 1000_000,
+            NANOS = 1000_000_000,
+            MIN_SECS = Math.floorDiv(TimeMillis.MIN_TIMESTAMP, MILLIS),
+            MAX_SECS = Math.floorDiv(TimeMillis.MAX_TIMESTAMP, MILLIS),
+            MIN_NANOS_SECS = Long.MIN_VALUE / NANOS + 1,
+            MAX_NANOS_SECS = Long.MAX_VALUE / NANOS - 1;
+
+    private static final int[] POWERS_OF_TEN = new int[]{
+            1, 10, 100, 1000, 10_000, 100_000, 1000_000, 10_000_000, 100_000_000, 1000_000_000 };
+}
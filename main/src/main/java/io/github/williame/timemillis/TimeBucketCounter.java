@@ -0,0 +1,190 @@
+package io.github.williame.timemillis;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events by time bucket, e.g. per minute over the last hour, from many threads at once
+ * without locks or boxed keys.  The buckets of a Bucketer are kept in a ring of slots, so a
+ * bucket's slot is reused once it is slots buckets old.
+ * <p>
+ * Each slot is striped over a cell per stripe of threads, each cell on its own cache line so that
+ * threads counting the same bucket don't share lines.  A cell holds its bucket's low bits along with
+ * the count, so a writer that finds an older bucket there swaps in the new one with the same
+ * compare-and-set that counts; a slot rolls over cell by cell with nothing lost and nothing
+ * blocked.  Events for a bucket slots or more buckets older than the newest one counted are dropped,
+ * as are those for a bucket whose slot has moved on to a later bucket.  Reads never block writers;
+ * a snapshot is exact per cell but may catch other cells mid-update.
+ * <p>
+ * The bucket's low bits are 24 bits, so buckets 2^24 apart share a tag.  Whoever moves the newest
+ * bucket on empties the cells of the buckets leaving the ring, so no cell holds a bucket much older
+ * than the ring and the signed 24-bit difference between tags tells buckets apart; that is why slots
+ * is at most 2^22.
+ * <p>
+ * Instances are thread-safe and meant to be shared.
+ */
+public final class TimeBucketCounter {
+
+    private final Bucketer bucketer;
+    private final int slots, stripes;
+    private final AtomicLongArray cells;
+    // the newest bucket counted, or Long.MIN_VALUE before the first
+    private final AtomicLong newest = new AtomicLong(Long.MIN_VALUE);
+
+    private TimeBucketCounter(Bucketer bucketer, int slots, int stripes) {
+        this.bucketer = bucketer;
+        this.slots = slots;
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(slots * stripes * PADDING);
+    }
+
+    // A ring of slots buckets of the bucketer
+    public static TimeBucketCounter of(Bucketer bucketer, int slots) {
+        if (slots <= 0 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("slots must be between 1 and " + MAX_SLOTS + ": " + slots);
+        }
+        final int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        if ((long) slots * stripes * PADDING > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many slots: " + slots);
+        }
+        return new TimeBucketCounter(bucketer, slots, stripes);
+    }
+
+    // Counts per minute over the last slots minutes
+    public static TimeBucketCounter ofMinutes(int slots) {
+        return of(Bucketer.ofMinutes(1), slots);
+    }
+
+    public static TimeBucketCounter ofHours(int slots) {
+        return of(Bucketer.ofHours(1), slots);
+    }
+
+    public boolean increment(long timestamp) {
+        return add(timestamp, 1);
+    }
+
+    // Adds n to the count of the timestamp's bucket; returns false, not counting it, if the bucket is slots or more
+    // buckets older than the newest counted, or its slot has moved on to a later bucket
+    public boolean add(long timestamp, long n) {
+        assert n >= 0 && n <= COUNT_MASK: n;
+        final long bucket = bucketer.bucket(timestamp), tag = (bucket & TAG_MASK) << COUNT_BITS;
+        final long newest = this.newest.get();
+        if (bucket > newest) {
+            advance(bucket);
+        } else if (!inRing(bucket, newest)) {
+            return false;
+        }
+        final int cell = cell(bucket, stripe());
+        for (;;) {
+            final long value = cells.get(cell);
+            final boolean empty = (value & COUNT_MASK) == 0;
+            final long age = age(bucket, value);
+            if (age < 0 && !empty) {
+                // the cell has moved on to a later bucket
+                return false;
+            }
+            // an older bucket, or an empty cell, is replaced
+            final long updated = age == 0 && !empty? value + n: tag | n;
+            if (cells.compareAndSet(cell, value, updated)) {
+                return true;
+            }
+        }
+    }
+
+    // The count of the timestamp's bucket, or 0 if its slot has moved on or not yet come to it
+    public long get(long timestamp) {
+        return count(bucketer.bucket(timestamp), newest.get());
+    }
+
+    // Sets counts[i] to the count of the i-th of the counts.length buckets ending with the one holding timestamp,
+    // e.g. the last hour by minute
+    public void snapshot(long timestamp, long[] counts) {
+        final long last = bucketer.bucket(timestamp), newest = this.newest.get();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = count(last - counts.length + 1 + i, newest);
+        }
+    }
+
+    public Bucketer getBucketer() {
+        return bucketer;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    private long count(long bucket, long newest) {
+        if (bucket > newest || !inRing(bucket, newest)) {
+            return 0;
+        }
+        long count = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            final long value = cells.get(cell(bucket, stripe));
+            count += age(bucket, value) == 0? value & COUNT_MASK: 0;
+        }
+        return count;
+    }
+
+    // Moves the newest bucket on to bucket, if that is newer, and empties the cells of the buckets leaving the ring
+    private void advance(long bucket) {
+        long newest;
+        do {
+            newest = this.newest.get();
+            if (bucket <= newest) {
+                return;
+            }
+        } while (!this.newest.compareAndSet(newest, bucket));
+        if (newest == Long.MIN_VALUE) {
+            // the cells start empty
+            return;
+        }
+        // the slots of the buckets after the old newest, at most the whole ring
+        final long moved = Long.compareUnsigned(bucket - newest, slots) < 0? bucket - newest: slots;
+        for (long i = moved - 1; i >= 0; i--) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                empty(cell(bucket - i, stripe), newest);
+            }
+        }
+    }
+
+    // Empties the cell if it holds a bucket at or before the old newest, so one whose slot has been taken; the
+    // cell's bucket is within a tag's reach of that, however far the newest has moved
+    private void empty(int cell, long oldNewest) {
+        for (;;) {
+            final long value = cells.get(cell);
+            if ((value & COUNT_MASK) == 0 || age(oldNewest, value) < 0 || cells.compareAndSet(cell, value, 0)) {
+                return;
+            }
+        }
+    }
+
+    // Whether a bucket at or before the newest is still in the ring; unsigned, as the difference may overflow
+    private boolean inRing(long bucket, long newest) {
+        return Long.compareUnsigned(newest - bucket, slots) < 0;
+    }
+
+    // How many buckets the bucket is after the one in the cell, modulo the tag bits; 0 if it is the same one
+    private static long age(long bucket, long value) {
+        return (bucket - (value >>> COUNT_BITS)) << COUNT_BITS >> COUNT_BITS;
+    }
+
+    private int cell(long bucket, int stripe) {
+        return ((int) Math.floorMod(bucket, (long) slots) * stripes + stripe) * PADDING;
+    }
+
+    // Threads are spread over the stripes by a hash of their id
+    private int stripe() {
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 40) & (stripes - 1);
+    }
+
+    // a cell is a bucket tag above a count
+    private static final int COUNT_BITS = 40;
+    private static final long
+            COUNT_MASK = (1L << COUNT_BITS) - 1,
+            TAG_MASK = (1L << (64 - COUNT_BITS)) - 1;
+    // longs per cell, so each is on its own 64-byte cache line
+    private static final int PADDING = 8;
+    private static final int MAX_STRIPES = 64;
+    // well inside the 2^23 buckets either way that a tag tells apart
+    private static final int MAX_SLOTS = 1 << 22;
+}
@@ -0,0 +1,235 @@
+package io.github.williame.timemillis;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * TimeMillis for timestamps as epoch micros, as tracing and market data carry them.  The calendar
+ * is TimeMillis's own; only the units differ.  Parsing is IsoParser's, strict, so unlike
+ * TimeMillis.parse it returns INVALID rather than reading malformed input leniently.
+ */
+public final class TimeMicros {
+
+    // Returned by parse for malformed or out of range input; never a valid timestamp
+    public static final long INVALID = IsoParser.INVALID;
+
+    private TimeMicros() {}
+
+    // The fraction is written as Instant.toString writes it: 3 or 6 digits, or none
+    public static String toIsoString(long timestamp) {
+        char[] chars = new char[27];
+        return new String(chars, 0, formatIso(timestamp, chars, 0));
+    }
+
+    public static StringBuilder toIsoString(long timestamp, StringBuilder out) {
+        return TimeSecs.toIsoDateTimeNanos(TimeMillis.floorDiv(timestamp, MICROS), getNanoseconds(timestamp), out);
+    }
+
+    // Writes the same chars as toIsoString (at most 27) at dst[off] and returns the offset just past them
+    public static int formatIso(long timestamp, char[] dst, int off) {
+        int end = TimeSecs.doToDateTimeNanos(dst, off, TimeMillis.floorDiv(timestamp, MICROS), getNanoseconds(timestamp), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    public static int formatIso(long timestamp, byte[] dst, int off) {
+        int end = TimeSecs.doToDateTimeNanos(dst, off, TimeMillis.floorDiv(timestamp, MICROS), getNanoseconds(timestamp), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    // Writes at the buffer's position and advances it; returns the new position
+    public static int formatIso(long timestamp, ByteBuffer dst) {
+        final int pos = dst.position();
+        if (dst.remaining() < 27) {
+            throw new BufferOverflowException();
+        }
+        int end = TimeSecs.doToDateTimeNanos(dst, pos, TimeMillis.floorDiv(timestamp, MICROS), getNanoseconds(timestamp), 'T');
+        dst.put(end++, (byte) 'Z');
+        ((Buffer) dst).position(end); // Buffer's signature so it still links on Java 8
+        return end;
+    }
+
+    // Strictly ISO-8601, with up to 9 fraction digits of which those finer than micros are dropped; see IsoParser
+    public static long parse(CharSequence timestamp) {
+        return IsoParser.parseMicros(timestamp);
+    }
+
+    public static long parse(CharSequence timestamp, int begin, int end) {
+        return IsoParser.parseMicros(timestamp, begin, end);
+    }
+
+    public static long parse(char[] timestamp, int begin, int end) {
+        return IsoParser.parseMicros(timestamp, begin, end);
+    }
+
+    public static long parse(byte[] timestamp, int begin, int end) {
+        return IsoParser.parseMicros(timestamp, begin, end);
+    }
+
+    public static long parse(ByteBuffer timestamp, int pos, int len) {
+        return IsoParser.parseMicros(timestamp, pos, len);
+    }
+
+    public static long of(int year, int month, int day, int hour, int minute, int second, int micros) {
+        long timestamp =
+                (long) TimeMillis.dayOfEpoch(year, month, day) * MICROS_IN_DAY +
+                hour * MICROS_IN_HOUR +
+                minute * MICROS_IN_MINUTE +
+                second * MICROS +
+                micros;
+        assert timestamp >= MIN_TIMESTAMP && timestamp <= MAX_TIMESTAMP: timestamp;
+        return timestamp;
+    }
+
+    public static long of(int year, int month, int day, int hour, int minute, int second) {
+        return of(year, month, day, hour, minute, second, 0);
+    }
+
+    public static long of(int year, int month, int day) {
+        return of(year, month, day, 0, 0, 0, 0);
+    }
+
+    public static long ofMillis(long timestamp) {
+        return timestamp * MICROS_IN_MILLI;
+    }
+
+    // Throws ArithmeticException outside the range of a long of micros, as Instant.toEpochMilli does for millis
+    public static long ofInstant(Instant instant) {
+        final long seconds = instant.getEpochSecond();
+        final int micros = instant.getNano() / NANOS_IN_MICRO;
+        if (seconds < 0 && micros > 0) {
+            // a second on, so the earliest instants don't overflow before the micros are added back
+            return Math.addExact(Math.multiplyExact(seconds + 1, MICROS), micros - MICROS);
+        }
+        return Math.addExact(Math.multiplyExact(seconds, MICROS), micros);
+    }
+
+    // Rounded down to the millisecond
+    public static long toMillis(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_MILLI);
+    }
+
+    public static Instant toInstant(long timestamp) {
+        return Instant.ofEpochSecond(TimeMillis.floorDiv(timestamp, MICROS), getNanoseconds(timestamp));
+    }
+
+    public static long truncateToMonths(long timestamp) {
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        return (long) (dayOfEpoch - (TimeMillis.dayToMonthAndDays(dayOfEpoch) & 31)) * MICROS_IN_DAY;
+    }
+
+    public static long truncateToDays(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_DAY) * MICROS_IN_DAY;
+    }
+
+    public static long truncateToHours(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_HOUR) * MICROS_IN_HOUR;
+    }
+
+    public static long truncateToHours(long timestamp, int numOfHours) {
+        assert 24 / numOfHours * numOfHours == 24: "should not truncate to unequal number of hours";
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_HOUR * numOfHours) * MICROS_IN_HOUR * numOfHours;
+    }
+
+    public static long truncateToMinutes(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_MINUTE) * MICROS_IN_MINUTE;
+    }
+
+    public static long truncateToMinutes(long timestamp, int numOfMinutes) {
+        assert 60 / numOfMinutes * numOfMinutes == 60: "should not truncate to unequal number of minutes";
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_MINUTE * numOfMinutes) * MICROS_IN_MINUTE * numOfMinutes;
+    }
+
+    public static long truncateToSeconds(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS) * MICROS;
+    }
+
+    public static long truncateToMillis(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, MICROS_IN_MILLI) * MICROS_IN_MILLI;
+    }
+
+    public static int dayOfEpoch(long timestamp) {
+        return (int) TimeMillis.floorDiv(timestamp, MICROS_IN_DAY);
+    }
+
+    // 1 to 365 (or 366 in a leap year)
+    public static int dayOfYear(long timestamp) {
+        return (TimeMillis.toYearAndDays(dayOfEpoch(timestamp)) & 511) + 1;
+    }
+
+    // 1 to 7 (Monday to Sunday) following the ISO-8601 standard
+    public static int dayOfWeek(long timestamp) {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(dayOfEpoch(timestamp) + 3, 7) + 1;
+    }
+
+    // 1 to 31
+    public static int dayOfMonth(long timestamp) {
+        return 1 + (TimeMillis.dayToMonthAndDays(dayOfEpoch(timestamp)) & 31);
+    }
+
+    public static int getYear(long timestamp) {
+        return TimeMillis.toYearAndDays(dayOfEpoch(timestamp)) >> 9;
+    }
+
+    // 1 to 12
+    public static int getMonth(long timestamp) {
+        return 1 + ((TimeMillis.dayToMonthAndDays(dayOfEpoch(timestamp)) >> 5) & 15);
+    }
+
+    // 0 to 23
+    public static int getHour(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, MICROS_IN_DAY) / MICROS_IN_HOUR);
+    }
+
+    // 0 to 59
+    public static int getMinute(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, MICROS_IN_HOUR) / MICROS_IN_MINUTE);
+    }
+
+    // 0 to 59
+    public static int getSecond(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, MICROS_IN_MINUTE) / MICROS);
+    }
+
+    // 0 to 999
+    public static int getMilliseconds(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, MICROS) / MICROS_IN_MILLI);
+    }
+
+    // 0 to 999_999
+    public static int getMicroseconds(long timestamp) {
+        return (int) TimeMillis.floorMod(timestamp, MICROS);
+    }
+
+    // 0 to 999_999_999
+    public static int getNanoseconds(long timestamp) {
+        return getMicroseconds(timestamp) * NANOS_IN_MICRO;
+    }
+
+    // Uniformly distributed over the whole supported range, so about a fifth are before 1970
+    public static long nextRandomTimestamp(Random random) {
+        return nextRandomTimestamp(random, MIN_TIMESTAMP, MAX_TIMESTAMP + 1);
+    }
+
+    // Uniformly distributed from begin (inclusive) to end (exclusive)
+    public static long nextRandomTimestamp(Random random, long begin, long end) {
+        return TimeMillis.nextRandomTimestamp(random, begin, end);
+    }
+
+    private static final int NANOS_IN_MICRO = 1000;
+    private static final long
+            MICROS_IN_MILLI = 1000,
+            MICROS = 1000_000,
+            MICROS_IN_MINUTE = 60 * MICROS,
+            MICROS_IN_HOUR = MICROS_IN_MINUTE * 60,
+            MICROS_IN_DAY = MICROS_IN_HOUR * 24;
+    // The same years as TimeMillis, 0000-01-01 to 9999-12-31
+    static final long
+            MIN_TIMESTAMP = TimeMillis.MIN_TIMESTAMP * MICROS_IN_MILLI,
+            MAX_TIMESTAMP = TimeMillis.MAX_TIMESTAMP * MICROS_IN_MILLI + MICROS_IN_MILLI - 1;
+}
@@ -1,68 +1,475 @@
 package io.github.williame.timemillis;
 
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.Instant;
 import java.util.Random;
 
 public final class TimeMillis {
 
+    // Returned by tryParse for malformed or out of range input; never a valid timestamp
+    public static final long INVALID = IsoParser.INVALID;
+
     private TimeMillis() {}
 
+    // The formatters write four digit years, so throw IllegalArgumentException outside MIN_TIMESTAMP to MAX_TIMESTAMP
     public static String toIsoString(long timestamp) {
         char[] chars = new char[24];
-        long secs = timestamp / MILLIS;
-        int length = TimeSecs.doToDateTime(chars, (int) secs, (int) (timestamp - (secs * MILLIS)), 'T');
+        int length = TimeSecs.doToDateTime(chars, 0, floorDiv(timestamp, MILLIS), (int) floorMod(timestamp, MILLIS), 'T');
         chars[length++] = 'Z';
         return new String(chars, 0, length);
     }
 
     public static StringBuilder toIsoString(long timestamp, StringBuilder out) {
-        return TimeSecs.toIsoDateTime((int) (timestamp / MILLIS), (int) (timestamp % MILLIS), out);
+        return TimeSecs.toIsoDateTime(floorDiv(timestamp, MILLIS), (int) floorMod(timestamp, MILLIS), out);
+    }
+
+    // Writes the same chars as toIsoString (at most 24) at dst[off] and returns the offset just past them
+    public static int formatIso(long timestamp, char[] dst, int off) {
+        int end = TimeSecs.doToDateTime(dst, off, floorDiv(timestamp, MILLIS), (int) floorMod(timestamp, MILLIS), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    public static int formatIso(long timestamp, byte[] dst, int off) {
+        int end = TimeSecs.doToDateTime(dst, off, floorDiv(timestamp, MILLIS), (int) floorMod(timestamp, MILLIS), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    // Always writes 24 chars, yyyy-MM-ddTHH:mm:ss.SSSZ with the millis even when 0, so columns of timestamps can be
+    // written to fixed slots; TimeMillis.parse reads them back
+    public static int formatIsoFixed(long timestamp, char[] dst, int off) {
+        checkFormatRange(timestamp);
+        final int day = dayOfEpoch(timestamp), millisOfDay = (int) (timestamp - (long) day * MILLIS_IN_DAY);
+        TimeSecs.doToYYYYmmdd(dst, off, toYearAndDays(day));
+        dst[off + 10] = 'T';
+        TimeSecs.doToHHMMSS(dst, off + 11, millisOfDay / (int) MILLIS);
+        dst[off + 19] = '.';
+        TimeSecs.emit3(dst, off + 20, millisOfDay % (int) MILLIS);
+        dst[off + 23] = 'Z';
+        return off + ISO_LENGTH;
+    }
+
+    public static int formatIsoFixed(long timestamp, byte[] dst, int off) {
+        checkFormatRange(timestamp);
+        final int day = dayOfEpoch(timestamp), millisOfDay = (int) (timestamp - (long) day * MILLIS_IN_DAY);
+        TimeSecs.doToYYYYmmdd(dst, off, toYearAndDays(day));
+        dst[off + 10] = 'T';
+        TimeSecs.doToHHMMSS(dst, off + 11, millisOfDay / (int) MILLIS);
+        dst[off + 19] = '.';
+        TimeSecs.emit3(dst, off + 20, millisOfDay % (int) MILLIS);
+        dst[off + 23] = 'Z';
+        return off + ISO_LENGTH;
+    }
+
+    // Writes at the buffer's position, advances it and returns the new position
+    public static int formatIso(long timestamp, ByteBuffer dst) {
+        final long secs = floorDiv(timestamp, MILLIS);
+        final int millis = (int) floorMod(timestamp, MILLIS), pos = dst.position();
+        if (dst.remaining() < (millis > 0? 24: 20)) {
+            throw new BufferOverflowException();
+        }
+        int end;
+        if (dst.hasArray()) {
+            final int arrayOffset = dst.arrayOffset();
+            end = formatIso(timestamp, dst.array(), arrayOffset + pos) - arrayOffset;
+        } else {
+            end = TimeSecs.doToDateTime(dst, pos, secs, millis, 'T');
+            dst.put(end++, (byte) 'Z');
+        }
+        ((Buffer) dst).position(end); // Buffer's signature so it still links on Java 8
+        return end;
     }
 
     public static long parse(CharSequence timestamp) {
         return parse(timestamp, 0, timestamp.length());
     }
 
+    /**
+     * Reads the fixed ISO layout a word at a time, then any other ISO-8601 that IsoParser accepts, then
+     * leniently yyyy?MM?dd?HH?mm?ss?SSS with any separator, or none at all as in yyyyMMddHHmmssSSS, with
+     * trailing fields optional, 1 to 3 fraction digits and anything after them ignored.  Returns INVALID if
+     * none of them read.
+     */
     public static long parse(CharSequence timestamp, int begin, int end) {
-        final int year, month, day, hour, minute, second, millis;
-        year = parseInt(timestamp, begin, Math.min(begin + 4, end));
-        int gap = timestamp.charAt(begin + 4) == '-'? 1: 0;
-        if (gap == 1 && timestamp.charAt(end - 1) == 'Z') {
+        final long parsed = parseIso(timestamp, begin, end);
+        return parsed != NOT_ISO? parsed: parseGeneral(timestamp, begin, end);
+    }
+
+    public static long parse(char[] timestamp, int begin, int end) {
+        final long parsed = parseIso(timestamp, begin, end);
+        return parsed != NOT_ISO? parsed: parseGeneral(timestamp, begin, end);
+    }
+
+    // Reads ASCII digits in place, e.g. straight from UTF-8 encoded network or file buffers, whatever the layout
+    public static long parse(byte[] timestamp, int begin, int end) {
+        final long parsed = parseIso(timestamp, begin, end);
+        return parsed != NOT_ISO? parsed: parseGeneral(timestamp, begin, end);
+    }
+
+    // Parses buf[buf.position() .. buf.limit()) without moving the buffer's position
+    public static long parse(ByteBuffer timestamp) {
+        return parse(timestamp, timestamp.position(), timestamp.remaining());
+    }
+
+    // Uses absolute gets so works equally on heap, direct and memory-mapped buffers
+    public static long parse(ByteBuffer timestamp, int pos, int len) {
+        final long parsed = parseIso(timestamp, pos, pos + len);
+        return parsed != NOT_ISO? parsed: parseGeneral(timestamp, pos, pos + len);
+    }
+
+    // Every input kind but the fixed layout comes here, and is read in place through IsoParser.charAt
+    private static long parseGeneral(Object s, int begin, int end) {
+        final long strict = IsoParser.parseText(s, begin, end, MILLIS, null, 0);
+        return strict != INVALID? strict: parseFields(s, begin, end);
+    }
+
+    // Reads yyyy?MM?dd?HH?mm?ss?SSS leniently, e.g. yyyyMMddHHmmssSSS, but with every field checked; s is any
+    // kind IsoParser.charAt reads
+    static long parseFields(Object s, int begin, int end) {
+        if (begin < 0 || end - begin < 8) {
+            return INVALID;
+        }
+        final int gap = IsoParser.charAt(s, begin + 4) == '-'? 1: 0;
+        if (gap == 1 && IsoParser.charAt(s, end - 1) == 'Z') {
             end--;
         }
+        final int year = IsoParser.digits(s, begin, end, 4);
         begin += 4 + gap;
-        month = parseInt(timestamp, begin, Math.min(begin + 2, end));
+        final int month = IsoParser.digits(s, begin, end, 2);
         begin += 2 + gap;
-        day = parseInt(timestamp, begin, Math.min(begin + 2, end));
+        final int day = IsoParser.digits(s, begin, end, 2);
         begin += 2 + gap;
-        hour = (begin + 2 <= end)? parseInt(timestamp, begin, begin + 2): 0;
+        final int hour = begin + 2 <= end? IsoParser.digits(s, begin, end, 2): 0;
         begin += 2 + gap;
-        minute = (begin + 2 <= end)? parseInt(timestamp, begin, begin + 2): 0;
+        final int minute = begin + 2 <= end? IsoParser.digits(s, begin, end, 2): 0;
         begin += 2 + gap;
-        second = (begin + 2 <= end)? parseInt(timestamp, begin, begin + 2): 0;
+        final int second = begin + 2 <= end? IsoParser.digits(s, begin, end, 2): 0;
         begin += 2 + gap;
-        millis = (begin + 3 <= end)? parseInt(timestamp, begin, begin + 3): 0;
+        // as many as three fraction digits
+        int millis = 0;
+        for (int scale = 100, digit; scale > 0 && begin < end && (digit = IsoParser.charAt(s, begin) - '0') >= 0 && digit <= 9;
+                begin++, scale /= 10) {
+            millis += digit * scale;
+        }
+        if ((year | month | day | hour | minute | second | millis) < 0 || !isValid(year, month, day, hour, minute, second)) {
+            return INVALID;
+        }
         return of(year, month, day, hour, minute, second, millis);
     }
 
-    private static int parseInt(CharSequence s, int begin, int end) {
-        int ret = 0;
-        for (int i = begin; i < end; i++) {
-            ret *= 10;
-            ret += s.charAt(i) - '0';
+    // Like parse but strictly ISO-8601 with every field range checked, returning INVALID instead of a wrong
+    // timestamp; see IsoParser for the layouts accepted
+    public static long tryParse(CharSequence timestamp) {
+        return IsoParser.parseMillis(timestamp, 0, timestamp.length(), null, 0);
+    }
+
+    public static long tryParse(CharSequence timestamp, int begin, int end) {
+        return IsoParser.parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    public static long tryParse(char[] timestamp, int begin, int end) {
+        return IsoParser.parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    public static long tryParse(byte[] timestamp, int begin, int end) {
+        return IsoParser.parseMillis(timestamp, begin, end, null, 0);
+    }
+
+    public static long tryParse(ByteBuffer timestamp, int pos, int len) {
+        return IsoParser.parseMillis(timestamp, pos, len, null, 0);
+    }
+
+    // Also stores IsoParser.OK, or the IsoParser.ERROR_ code saying why it was INVALID, in errors[errorIndex]
+    public static long tryParse(CharSequence timestamp, int begin, int end, int[] errors, int errorIndex) {
+        return IsoParser.parseMillis(timestamp, begin, end, errors, errorIndex);
+    }
+
+    public static long tryParse(char[] timestamp, int begin, int end, int[] errors, int errorIndex) {
+        return IsoParser.parseMillis(timestamp, begin, end, errors, errorIndex);
+    }
+
+    public static long tryParse(byte[] timestamp, int begin, int end, int[] errors, int errorIndex) {
+        return IsoParser.parseMillis(timestamp, begin, end, errors, errorIndex);
+    }
+
+    public static long tryParse(ByteBuffer timestamp, int pos, int len, int[] errors, int errorIndex) {
+        return IsoParser.parseMillis(timestamp, pos, len, errors, errorIndex);
+    }
+
+    /**
+     * Fast path for the fixed yyyy-MM-ddTHH:mm:ss.SSSZ layout, given as three 8-char words with the
+     * first char in the lowest byte.  All separators and digits are checked a whole word at a time
+     * and digit pairs are combined with a single multiply per word.  Returns NOT_ISO for any other
+     * shape so callers can fall back to the general parser, and for out of range fields, which no parser
+     * accepts either, so lenient callers end up INVALID too rather than with a wrong timestamp.
+     */
+    static long parseIso(long a, long b, long c) {
+        final long
+                da = isoDigits(a, ISO_A_DIGITS, ISO_A_SEPARATORS),
+                db = isoDigits(b, ISO_B_DIGITS, ISO_B_SEPARATORS),
+                dc = isoDigits(c, ISO_C_DIGITS, ISO_C_SEPARATORS);
+        if ((da | db | dc) < 0) {
+            return NOT_ISO;
+        }
+        // byte i of each pairs word is digit[i] * 10 + digit[i + 1]
+        final long pa = da * 10 + (da >>> 8), pb = db * 10 + (db >>> 8), pc = dc * 10 + (dc >>> 8);
+        final int
+                year = (int) (pa & 0xff) * 100 + (int) ((pa >>> 16) & 0xff),
+                month = (int) ((pa >>> 40) & 0xff),
+                day = (int) (pb & 0xff),
+                hour = (int) ((pb >>> 24) & 0xff),
+                minute = (int) ((pb >>> 48) & 0xff),
+                second = (int) ((pc >>> 8) & 0xff);
+        if (!isValid(year, month, day, hour, minute, second)) {
+            return NOT_ISO;
+        }
+        return of(year, month, day, hour, minute, second, (int) ((pc >>> 32) & 0xff) * 10 + (int) ((dc >>> 48) & 0xff));
+    }
+
+    // Returns the digit values in the digit lanes (0 elsewhere) or -1 if the word doesn't match
+    private static long isoDigits(long word, long digitLanes, long separators) {
+        if ((word & ~digitLanes) != separators) {
+            return -1;
+        }
+        final long chars = (word & digitLanes) | (ASCII_ZEROS & ~digitLanes), digits = chars - ASCII_ZEROS;
+        // high bit set in any lane that is non-ASCII, above '9' or below '0'
+        if (((chars | (chars + 0x4646464646464646L) | digits) & 0x8080808080808080L) != 0) {
+            return -1;
+        }
+        return digits;
+    }
+
+    // parseIso of s[begin .. end), or NOT_ISO if that isn't ISO_LENGTH long
+    static long parseIso(CharSequence s, int begin, int end) {
+        return end - begin != ISO_LENGTH? NOT_ISO: parseIso(load8(s, begin), load8(s, begin + 8), load8(s, begin + 16));
+    }
+
+    static long parseIso(char[] s, int begin, int end) {
+        return end - begin != ISO_LENGTH? NOT_ISO: parseIso(load8(s, begin), load8(s, begin + 8), load8(s, begin + 16));
+    }
+
+    static long parseIso(byte[] s, int begin, int end) {
+        return end - begin != ISO_LENGTH? NOT_ISO: parseIso(load8(s, begin), load8(s, begin + 8), load8(s, begin + 16));
+    }
+
+    static long parseIso(ByteBuffer s, int begin, int end) {
+        return end - begin != ISO_LENGTH? NOT_ISO: parseIso(load8(s, begin), load8(s, begin + 8), load8(s, begin + 16));
+    }
+
+    // The time of day of the fixed ISO layout in b's last six chars and c, or NOT_ISO if it isn't a valid one;
+    // b's day is checked to be digits too
+    private static long parseIsoTime(long b, long c) {
+        final long
+                db = isoDigits(b, ISO_B_DIGITS, ISO_B_SEPARATORS),
+                dc = isoDigits(c, ISO_C_DIGITS, ISO_C_SEPARATORS);
+        if ((db | dc) < 0) {
+            return NOT_ISO;
+        }
+        final long pb = db * 10 + (db >>> 8), pc = dc * 10 + (dc >>> 8);
+        final long hour = (pb >>> 24) & 0xff, minute = (pb >>> 48) & 0xff, second = (pc >>> 8) & 0xff;
+        if (hour >= 24 || minute >= 60 || second >= 60) {
+            return NOT_ISO;
+        }
+        return hour * MILLIS_IN_HOUR + minute * MILLIS_IN_MINUTE + second * MILLIS +
+                ((pc >>> 32) & 0xff) * 10 + ((dc >>> 48) & 0xff);
+    }
+
+    // Remembers the date of the last row parseAll read in the fixed ISO layout, as its first 10 chars and
+    // the millis at the start of that day
+    private static final class IsoColumn {
+        private long a, day = -1, dayMillis;
+
+        // As parseIso(a, b, c), reading only the time of day when the date is the last row's
+        long parse(long a, long b, long c) {
+            if (a == this.a && (b & ISO_B_DAY) == day) {
+                final long time = parseIsoTime(b, c);
+                return time != NOT_ISO? dayMillis + time: NOT_ISO;
+            }
+            final long parsed = parseIso(a, b, c);
+            if (parsed != NOT_ISO) {
+                this.a = a;
+                day = b & ISO_B_DAY;
+                dayMillis = parsed - parseIsoTime(b, c);
+            }
+            return parsed;
+        }
+    }
+
+    // Non-ASCII chars poison the whole word so that it fails the digit check
+    private static long load8(CharSequence s, int begin) {
+        final char c0 = s.charAt(begin), c1 = s.charAt(begin + 1), c2 = s.charAt(begin + 2), c3 = s.charAt(begin + 3),
+                c4 = s.charAt(begin + 4), c5 = s.charAt(begin + 5), c6 = s.charAt(begin + 6), c7 = s.charAt(begin + 7);
+        if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) >= 0x80) {
+            return -1;
+        }
+        return c0 | (long) c1 << 8 | (long) c2 << 16 | (long) c3 << 24 |
+                (long) c4 << 32 | (long) c5 << 40 | (long) c6 << 48 | (long) c7 << 56;
+    }
+
+    private static long load8(char[] s, int begin) {
+        final char c0 = s[begin], c1 = s[begin + 1], c2 = s[begin + 2], c3 = s[begin + 3],
+                c4 = s[begin + 4], c5 = s[begin + 5], c6 = s[begin + 6], c7 = s[begin + 7];
+        if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) >= 0x80) {
+            return -1;
+        }
+        return c0 | (long) c1 << 8 | (long) c2 << 16 | (long) c3 << 24 |
+                (long) c4 << 32 | (long) c5 << 40 | (long) c6 << 48 | (long) c7 << 56;
+    }
+
+    private static long load8(byte[] s, int begin) {
+        return (s[begin] & 0xffL) |
+                (s[begin + 1] & 0xffL) << 8 |
+                (s[begin + 2] & 0xffL) << 16 |
+                (s[begin + 3] & 0xffL) << 24 |
+                (s[begin + 4] & 0xffL) << 32 |
+                (s[begin + 5] & 0xffL) << 40 |
+                (s[begin + 6] & 0xffL) << 48 |
+                (s[begin + 7] & 0xffL) << 56;
+    }
+
+    private static long load8(ByteBuffer s, int begin) {
+        long word = s.getLong(begin);
+        return s.order() == ByteOrder.LITTLE_ENDIAN? word: Long.reverseBytes(word);
+    }
+
+    /**
+     * Parses in[inOffset + i] into out[outOffset + i] for each i below count.  Columns are usually sorted or
+     * clustered, so rows in the fixed ISO layout whose date matches the row before only have their time of day
+     * read; the date is converted once per run of rows rather than once per row.
+     */
+    public static void parseAll(CharSequence[] in, long[] out) {
+        parseAll(in, 0, out, 0, in.length);
+    }
+
+    public static void parseAll(CharSequence[] in, int inOffset, long[] out, int outOffset, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        final IsoColumn column = new IsoColumn();
+        for (int i = 0; i < count; i++) {
+            final CharSequence timestamp = in[inOffset + i];
+            final int length = timestamp.length();
+            final long parsed = length == ISO_LENGTH?
+                    column.parse(load8(timestamp, 0), load8(timestamp, 8), load8(timestamp, 16)): NOT_ISO;
+            out[outOffset + i] = parsed != NOT_ISO? parsed: parse(timestamp, 0, length);
+        }
+    }
+
+    // Parses a column of timestamps packed into a shared buffer; the i-th timestamp
+    // is buf[offsets[i] .. offsets[i] + lengths[i])
+    public static void parseAll(char[] buf, int[] offsets, int[] lengths, long[] out) {
+        parseAll(buf, offsets, lengths, out, 0, offsets.length);
+    }
+
+    public static void parseAll(char[] buf, int[] offsets, int[] lengths, long[] out, int outOffset, int count) {
+        checkBulkRange(Math.min(offsets.length, lengths.length), 0, out.length, outOffset, count);
+        final IsoColumn column = new IsoColumn();
+        for (int i = 0; i < count; i++) {
+            final int begin = offsets[i], end = begin + lengths[i];
+            final long parsed = end - begin == ISO_LENGTH?
+                    column.parse(load8(buf, begin), load8(buf, begin + 8), load8(buf, begin + 16)): NOT_ISO;
+            out[outOffset + i] = parsed != NOT_ISO? parsed: parse(buf, begin, end);
+        }
+    }
+
+    public static void parseAll(byte[] buf, int[] offsets, int[] lengths, long[] out) {
+        parseAll(buf, offsets, lengths, out, 0, offsets.length);
+    }
+
+    public static void parseAll(byte[] buf, int[] offsets, int[] lengths, long[] out, int outOffset, int count) {
+        checkBulkRange(Math.min(offsets.length, lengths.length), 0, out.length, outOffset, count);
+        final IsoColumn column = new IsoColumn();
+        for (int i = 0; i < count; i++) {
+            final int begin = offsets[i], end = begin + lengths[i];
+            final long parsed = end - begin == ISO_LENGTH?
+                    column.parse(load8(buf, begin), load8(buf, begin + 8), load8(buf, begin + 16)): NOT_ISO;
+            out[outOffset + i] = parsed != NOT_ISO? parsed: parse(buf, begin, end);
+        }
+    }
+
+    // As parseAll but with tryParse, so bad rows become INVALID; errors may be null, otherwise errors[outOffset + i]
+    // gets the error code for out[outOffset + i].  Returns how many rows were INVALID
+    public static int tryParseAll(CharSequence[] in, long[] out, int[] errors) {
+        return tryParseAll(in, 0, out, 0, errors, in.length);
+    }
+
+    public static int tryParseAll(CharSequence[] in, int inOffset, long[] out, int outOffset, int[] errors, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        if (errors != null) {
+            checkBulkRange(in.length, inOffset, errors.length, outOffset, count);
+        }
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            CharSequence timestamp = in[inOffset + i];
+            long parsed = IsoParser.parseMillis(timestamp, 0, timestamp.length(), errors, outOffset + i);
+            out[outOffset + i] = parsed;
+            invalid += parsed == INVALID? 1: 0;
+        }
+        return invalid;
+    }
+
+    public static int tryParseAll(char[] buf, int[] offsets, int[] lengths, long[] out, int[] errors) {
+        return tryParseAll(buf, offsets, lengths, out, errors, 0, offsets.length);
+    }
+
+    public static int tryParseAll(char[] buf, int[] offsets, int[] lengths, long[] out, int[] errors, int outOffset, int count) {
+        checkBulkRange(Math.min(offsets.length, lengths.length), 0, out.length, outOffset, count);
+        if (errors != null) {
+            checkBulkRange(Math.min(offsets.length, lengths.length), 0, errors.length, outOffset, count);
+        }
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            int begin = offsets[i];
+            long parsed = IsoParser.parseMillis(buf, begin, begin + lengths[i], errors, outOffset + i);
+            out[outOffset + i] = parsed;
+            invalid += parsed == INVALID? 1: 0;
+        }
+        return invalid;
+    }
+
+    public static int tryParseAll(byte[] buf, int[] offsets, int[] lengths, long[] out, int[] errors) {
+        return tryParseAll(buf, offsets, lengths, out, errors, 0, offsets.length);
+    }
+
+    public static int tryParseAll(byte[] buf, int[] offsets, int[] lengths, long[] out, int[] errors, int outOffset, int count) {
+        checkBulkRange(Math.min(offsets.length, lengths.length), 0, out.length, outOffset, count);
+        if (errors != null) {
+            checkBulkRange(Math.min(offsets.length, lengths.length), 0, errors.length, outOffset, count);
+        }
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            int begin = offsets[i];
+            long parsed = IsoParser.parseMillis(buf, begin, begin + lengths[i], errors, outOffset + i);
+            out[outOffset + i] = parsed;
+            invalid += parsed == INVALID? 1: 0;
+        }
+        return invalid;
+    }
+
+    static void checkFormatRange(long timestamp) {
+        if (timestamp < MIN_TIMESTAMP || timestamp > MAX_TIMESTAMP) {
+            throw new IllegalArgumentException("can only format 0000-01-01 to 9999-12-31, not " + timestamp + " millis");
+        }
+    }
+
+    static void checkBulkRange(int inLength, int inOffset, int outLength, int outOffset, int count) {
+        if (count < 0 || inOffset < 0 || outOffset < 0 ||
+                inOffset > inLength - count || outOffset > outLength - count) {
+            throw new IndexOutOfBoundsException("in: " + inOffset + "+" + count + " of " + inLength +
+                    ", out: " + outOffset + "+" + count + " of " + outLength);
         }
-        return ret;
     }
 
     public static long of(int year, int month, int day, int hour, int minute, int second, int millis) {
         long timestamp =
-                (MONTHS[(year - MIN_YEAR) * 12 + month - 1] >> TIMESTAMP_SHIFT) +
-                (long)(day - 1) * MILLIS_IN_DAY +
+                (long) dayOfEpoch(year, month, day) * MILLIS_IN_DAY +
                 hour * MILLIS_IN_HOUR +
                 minute * MILLIS_IN_MINUTE +
                 second * MILLIS +
                 millis;
-        assert timestamp >= 0 && timestamp < MAX_TIMESTAMP: timestamp;
+        assert timestamp >= MIN_TIMESTAMP && timestamp <= MAX_TIMESTAMP: timestamp;
         return timestamp;
     }
 
@@ -74,40 +481,123 @@ public final class TimeMillis {
         return of(year, month, day, 0, 0, 0, 0);
     }
 
+    // Whether the fields name a real date and time of day within the supported years
+    static boolean isValid(int year, int month, int day, int hour, int minute, int second) {
+        return year >= MIN_YEAR && year <= MAX_YEAR &&
+                month >= 1 && month <= 12 &&
+                day >= 1 && day <= lengthOfMonth(year, month) &&
+                hour >= 0 && hour < 24 &&
+                minute >= 0 && minute < 60 &&
+                second >= 0 && second < 60;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        return month == 2 && isLeapYear(year)? 29: DAYS_IN_MONTH[month - 1];
+    }
+
+    // Days from 1970-01-01 to the date, which must be valid
+    static int dayOfEpoch(int year, int month, int day) {
+        return daysToYear(year) + MONTHS[(isLeapYear(year)? 12: 0) + month - 1] + day - 1;
+    }
+
     public static long truncateToMonths(long timestamp) {
-        int yearAndDays = toYearAndDays(timestamp);
-        int monthAndDays = toMonthAndDays(yearAndDays);
-        return of(yearAndDays >> 9, 1 + ( monthAndDays >> 5), 1, 0, 0, 0, 0);
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        return (long) (dayOfEpoch - (dayToMonthAndDays(dayOfEpoch) & 31)) * MILLIS_IN_DAY;
     }
 
     public static long truncateToDays(long timestamp) {
-        return  timestamp / MILLIS_IN_DAY * MILLIS_IN_DAY;
+        return floorDiv(timestamp, MILLIS_IN_DAY) * MILLIS_IN_DAY;
     }
 
     public static long truncateToHours(long timestamp) {
-        return  timestamp / MILLIS_IN_HOUR * MILLIS_IN_HOUR;
+        return floorDiv(timestamp, MILLIS_IN_HOUR) * MILLIS_IN_HOUR;
     }
 
     public static long truncateToHours(long timestamp, int numOfHours) {
         assert 24 / numOfHours * numOfHours == 24: "should not truncate to unequal number of hours";
-        return timestamp / (MILLIS_IN_HOUR * numOfHours) * MILLIS_IN_HOUR * numOfHours;
+        return floorDiv(timestamp, MILLIS_IN_HOUR * numOfHours) * MILLIS_IN_HOUR * numOfHours;
     }
 
     public static long truncateToMinutes(long timestamp) {
-        return timestamp / MILLIS_IN_MINUTE * MILLIS_IN_MINUTE;
+        return floorDiv(timestamp, MILLIS_IN_MINUTE) * MILLIS_IN_MINUTE;
     }
 
     public static long truncateToMinutes(long timestamp, int numOfMinutes) {
         assert 60 / numOfMinutes * numOfMinutes == 60: "should not truncate to unequal number of minutes";
-        return timestamp / (MILLIS_IN_MINUTE * numOfMinutes) * MILLIS_IN_MINUTE * numOfMinutes;
+        return floorDiv(timestamp, MILLIS_IN_MINUTE * numOfMinutes) * MILLIS_IN_MINUTE * numOfMinutes;
     }
 
     public static long truncatedToSeconds(long timestamp) {
-        return timestamp / MILLIS * MILLIS;
+        return floorDiv(timestamp, MILLIS) * MILLIS;
+    }
+
+    // The first day of the week, a Monday, following the ISO-8601 standard
+    public static long startOfWeek(long timestamp) {
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        // 1970-01-01 was a Thursday
+        return (long) (dayOfEpoch - Math.floorMod(dayOfEpoch + 3, 7)) * MILLIS_IN_DAY;
+    }
+
+    // The last millisecond of the month
+    public static long endOfMonth(long timestamp) {
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        int yearAndDays = toYearAndDays(dayOfEpoch), monthAndDays = toMonthAndDays(yearAndDays);
+        int lengthOfMonth = lengthOfMonth(yearAndDays >> 9, (monthAndDays >> 5) + 1);
+        return (long) (dayOfEpoch - (monthAndDays & 31) + lengthOfMonth) * MILLIS_IN_DAY - 1;
+    }
+
+    public static long plusDays(long timestamp, int days) {
+        return timestamp + days * MILLIS_IN_DAY;
+    }
+
+    // As ZonedDateTime.plusMonths in UTC: the day of the month is clamped to the length of the new month
+    public static long plusMonths(long timestamp, int months) {
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        int yearAndDays = toYearAndDays(dayOfEpoch), monthAndDays = toMonthAndDays(yearAndDays);
+        int elapsedMonths = (yearAndDays >> 9) * 12 + (monthAndDays >> 5) + months;
+        int year = Math.floorDiv(elapsedMonths, 12), month = Math.floorMod(elapsedMonths, 12) + 1;
+        int day = Math.min((monthAndDays & 31) + 1, lengthOfMonth(year, month));
+        long plusMonths = (long) dayOfEpoch(year, month, day) * MILLIS_IN_DAY + floorMod(timestamp, MILLIS_IN_DAY);
+        assert plusMonths >= MIN_TIMESTAMP && plusMonths <= MAX_TIMESTAMP: plusMonths;
+        return plusMonths;
+    }
+
+    // As ZonedDateTime.plusYears in UTC: the 29th of February becomes the 28th in common years
+    public static long plusYears(long timestamp, int years) {
+        return plusMonths(timestamp, years * 12);
+    }
+
+    // Whole days from start to end, negative if end is before start; as ChronoUnit.DAYS.between
+    public static long daysBetween(long start, long end) {
+        return (end - start) / MILLIS_IN_DAY;
+    }
+
+    // Whole calendar months from start to end, negative if end is before start; as ChronoUnit.MONTHS.between
+    public static int monthsBetween(long start, long end) {
+        int startDay = dayOfEpoch(start), endDay = dayOfEpoch(end);
+        long startTime = floorMod(start, MILLIS_IN_DAY), endTime = floorMod(end, MILLIS_IN_DAY);
+        // a month isn't complete until the time of day is reached on its last day too
+        if (endDay > startDay && endTime < startTime) {
+            endDay--;
+        } else if (endDay < startDay && endTime > startTime) {
+            endDay++;
+        }
+        return (elapsedMonthsAndDays(endDay) - elapsedMonthsAndDays(startDay)) / 32;
+    }
+
+    // Whole calendar years from start to end, negative if end is before start; as ChronoUnit.YEARS.between
+    public static int yearsBetween(long start, long end) {
+        return monthsBetween(start, end) / 12;
+    }
+
+    // Returns months since 0000-01 * 32 + dayOfMonth
+    private static int elapsedMonthsAndDays(int dayOfEpoch) {
+        int yearAndDays = toYearAndDays(dayOfEpoch), monthAndDays = toMonthAndDays(yearAndDays);
+        return (yearAndDays >> 9) * 12 * 32 + monthAndDays;
     }
 
     public static int dayOfEpoch(long timestamp) {
-        return (int)(timestamp / MILLIS_IN_DAY);
+        return (int) floorDiv(timestamp, MILLIS_IN_DAY);
     }
 
     // 1 to 365 (or 366 in a leap year)
@@ -119,12 +609,12 @@ public final class TimeMillis {
     // Compatible with java.time.DayOfWeek.of()
     public static int dayOfWeek(long timestamp) {
         // 1970-01-01 was a Thursday
-        return (dayOfEpoch(timestamp) + 3) % 7 + 1;
+        return Math.floorMod(dayOfEpoch(timestamp) + 3, 7) + 1;
     }
 
     // 1 to 31
     public static int dayOfMonth(long timestamp) {
-        return 1 + (toMonthAndDays(toYearAndDays(timestamp)) & 31);
+        return 1 + (toMonthAndDays(timestamp) & 31);
     }
 
     public static int getYear(long timestamp) {
@@ -133,27 +623,27 @@ public final class TimeMillis {
 
     // 1 to 12
     public static int getMonth(long timestamp) {
-        return 1 + (toMonthAndDays(toYearAndDays(timestamp)) >> 5);
+        return 1 + ((toMonthAndDays(timestamp) >> 5) & 15);
     }
 
     // 0 to 23
     public static int getHour(long timestamp) {
-        return (int)((timestamp % MILLIS_IN_DAY) / MILLIS_IN_HOUR);
+        return (int) (floorMod(timestamp, MILLIS_IN_DAY) / MILLIS_IN_HOUR);
     }
 
     // 0 to 59
     public static int getMinute(long timestamp) {
-        return (int)((timestamp % MILLIS_IN_HOUR) / MILLIS_IN_MINUTE);
+        return (int) (floorMod(timestamp, MILLIS_IN_HOUR) / MILLIS_IN_MINUTE);
     }
 
     // 0 to 59
     public static int getSecond(long timestamp) {
-        return (int)((timestamp % MILLIS_IN_MINUTE) / MILLIS);
+        return (int) (floorMod(timestamp, MILLIS_IN_MINUTE) / MILLIS);
     }
 
-    // 0 to 9999
+    // 0 to 999
     public static int getMilliseconds(long timestamp) {
-        return (int)(timestamp % MILLIS);
+        return (int) floorMod(timestamp, MILLIS);
     }
 
     public static int getMilliseconds(Instant instant) {
@@ -166,11 +656,31 @@ public final class TimeMillis {
         return getMilliseconds(timestamp) * 1_000_000;
     }
 
+    // Math.floorDiv and floorMod for a positive divisor.  Timestamps from 1970 on keep the plain truncating
+    // division they always had; measured, the sign test costs little even on mixed-sign input
+    static long floorDiv(long x, long y) {
+        return x >= 0? x / y: Math.floorDiv(x, y);
+    }
+
+    static long floorMod(long x, long y) {
+        return x >= 0? x % y: Math.floorMod(x, y);
+    }
+
+    // Returns elapsed months * 32 + dayOfMonth, and for the Euclidean affine engine the year * 512 too
+    private static int toMonthAndDays(long timestamp) {
+        return EUCLIDEAN_AFFINE? toYearMonthAndDays(dayOfEpoch(timestamp)): toMonthAndDays(toYearAndDays(timestamp));
+    }
+
+    // As above, for the day rather than the timestamp, which is how the finer grained classes share the calendar
+    static int dayToMonthAndDays(int dayOfEpoch) {
+        return EUCLIDEAN_AFFINE? toYearMonthAndDays(dayOfEpoch): toMonthAndDays(toYearAndDays(dayOfEpoch));
+    }
+
     // Returns elapsed months * 32 + dayOfMonth
     static int toMonthAndDays(int yearAndDays) {
         int year = yearAndDays >> 9, daysLeft = yearAndDays & 511;
         // If needed: Adjust for leap year:
-        if((year & 3) == 0) {
+        if(isLeapYear(year)) {
             if (daysLeft == 31 + 28) {
                 return (1 << 5) | 28;
             } else if (daysLeft > 31 + 28) {
@@ -187,13 +697,18 @@ public final class TimeMillis {
 
     // Returns year * 512 + daysInYear
     static int toYearAndDays(int dayOfEpoch) {
-        int passedLeapCycles = (dayOfEpoch / 1461);
-        int passedDaysCurrentCycle = dayOfEpoch - (passedLeapCycles * 1461);
+        // From 1901 to 2100 every fourth year is a leap year, which makes the common case cheap
+        final int daysSince1901 = dayOfEpoch - DAY_OF_EPOCH_1901;
+        if (daysSince1901 < 0 || daysSince1901 >= DAYS_1901_TO_2101) {
+            return toYearAndDaysInCycle(dayOfEpoch);
+        }
+        int passedLeapCycles = (daysSince1901 / 1461);
+        int passedDaysCurrentCycle = daysSince1901 - (passedLeapCycles * 1461);
 
         // Adjust running leap year cycle:
-        int yearCycle = MIN_YEAR + passedLeapCycles * 4;
-        if(passedDaysCurrentCycle >= 1096) { // 365 + 365 + 366
-            return ((yearCycle + 3) << 9) | (passedDaysCurrentCycle - 1096);
+        int yearCycle = 1901 + passedLeapCycles * 4;
+        if(passedDaysCurrentCycle >= 1095) { // 365 + 365 + 365
+            return ((yearCycle + 3) << 9) | (passedDaysCurrentCycle - 1095);
         } else if(passedDaysCurrentCycle >= 730) { // 365 + 365
             return ((yearCycle + 2) << 9) | (passedDaysCurrentCycle - 730);
         } else if(passedDaysCurrentCycle >= 365) { // 365
@@ -203,20 +718,100 @@ public final class TimeMillis {
         }
     }
 
+    private static int toYearAndDaysInCycle(int dayOfEpoch) {
+        final int days = dayOfEpoch + DAYS_0000_TO_1970;
+        final int passed400YearCycles = days / DAYS_IN_400_YEARS;
+        final int dayOfCycle = days - passed400YearCycles * DAYS_IN_400_YEARS;
+        // No bucket spans more than two years; step into the next one if the day is past the end of the first
+        final int bucket = CYCLE_BUCKETS[dayOfCycle >> CYCLE_BUCKET_SHIFT];
+        final int yearStart = bucket & CYCLE_BUCKET_START_MASK, yearLength = 365 + ((bucket >> CYCLE_BUCKET_LEAP_SHIFT) & 1);
+        final int nextYear = (yearStart + yearLength - 1 - dayOfCycle) >>> 31;
+        final int yearOfCycle = (bucket >>> CYCLE_BUCKET_YEAR_SHIFT) + nextYear;
+        return ((passed400YearCycles * 400 + yearOfCycle) << 9) | (dayOfCycle - yearStart - nextYear * yearLength);
+    }
+
+    /**
+     * Returns year * 512 + elapsed months * 32 + dayOfMonth, as toYearAndDays and toMonthAndDays would
+     * between them, but with no tables and no branches: the date is found from the year starting on the
+     * 1st of March, so that the leap day is the last day of its year, by the Euclidean affine functions
+     * of Neri and Schneider, "Euclidean affine functions and their application to calendar algorithms",
+     * in which each division is by a constant and is done as a multiply and shift.
+     */
+    static int toYearMonthAndDays(int dayOfEpoch) {
+        // quarter-days since -0400-03-01, so the days of every supported year are positive
+        final int quarterDays = 4 * (dayOfEpoch + DAYS_BEFORE_EPOCH_FROM_MARCH) + 3;
+        final int century = (int) (quarterDays * 15_051_803L >>> 41); // / 146097
+        // the last quarter of the day within the century
+        final int quarterDaysOfCentury = (quarterDays - century * DAYS_IN_400_YEARS) | 3;
+        final int yearOfCentury = (int) (quarterDaysOfCentury * 2_939_745L >>> 32); // / 1461
+        final int dayOfYear = (quarterDaysOfCentury - yearOfCentury * DAYS_IN_4_YEARS) >> 2;
+        // multiplying by 2^16 / 30.6 puts the month, counting March as 3, in the high half and its days in the low
+        final int monthOfYear = 2141 * dayOfYear + 197_913;
+        final int january = (305 - dayOfYear) >>> 31; // January and February are counted in the next year
+        final int year = 100 * century + yearOfCentury - 400 + january;
+        final int month = (monthOfYear >>> 16) - 1 - 12 * january;
+        return (year << 9) | (month << 5) | ((monthOfYear & 0xffff) * 31_345 >>> 26); // / 2141
+    }
+
+    // Days from 1970-01-01 to the first of January of the year
+    static int daysToYear(int year) {
+        if (year >= 1901 && year <= 2100) {
+            return (year - 1970) * 365 + ((year - 1901) >> 2) - 17; // 17 leap years from 1901 to 1970
+        }
+        // Leap years before this one, counting year 0000 itself
+        final int leapYears = (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        return year * 365 + leapYears - DAYS_0000_TO_1970;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || (year & 15) == 0);
+    }
+
+    /**
+     * The months and days of months can be found either with the tables, or with the Euclidean affine
+     * functions that need none, and on the machines benchmarked so far the tables have been faster:
+     * -Dtimemillis.euclidean=true uses the other, e.g. to compare the two.
+     */
+    static final boolean EUCLIDEAN_AFFINE = Boolean.getBoolean("timemillis.euclidean");
+
+    // The proleptic Gregorian calendar is supported from 0000-01-01 to 9999-12-31
+    static final int
+            MIN_YEAR = 0,
+            MAX_YEAR = 9999;
     private static final int
             NANOS_IN_MILLIS = 1_000_000,
-            YEAR_SHIFT = 5,
-            TIMESTAMP_SHIFT = YEAR_SHIFT + 11,
-            MIN_YEAR = 1970,
-            MAX_YEAR = 2038;
+            DAYS_IN_4_YEARS = 365 * 4 + 1,
+            DAYS_IN_100_YEARS = DAYS_IN_4_YEARS * 25 - 1,
+            DAYS_IN_400_YEARS = DAYS_IN_100_YEARS * 4 + 1,
+            DAYS_0000_TO_1970 = 719_528,
+            DAYS_BEFORE_EPOCH_FROM_MARCH = 719_468 + DAYS_IN_400_YEARS, // from -0400-03-01
+            DAY_OF_EPOCH_1901 = -25_202,
+            DAYS_1901_TO_2101 = 73_049,
+            CYCLE_BUCKET_SHIFT = 8,
+            CYCLE_BUCKET_START_MASK = (1 << 18) - 1,
+            CYCLE_BUCKET_LEAP_SHIFT = 18,
+            CYCLE_BUCKET_YEAR_SHIFT = 19;
     private static final long
             MILLIS = 1000,
             MILLIS_IN_MINUTE = 60 * MILLIS,
             MILLIS_IN_HOUR = MILLIS_IN_MINUTE * 60,
-            MILLIS_IN_DAY = MILLIS_IN_HOUR * 24,
-            MONTH_MASK = 0xfL,
-            YEAR_MASK = 0x7ffL << YEAR_SHIFT,
-            MAX_TIMESTAMP = (long)Integer.MAX_VALUE * 1000 + 999;
+            MILLIS_IN_DAY = MILLIS_IN_HOUR * 24;
+    static final long
+            MIN_TIMESTAMP = daysToYear(MIN_YEAR) * MILLIS_IN_DAY,
+            MAX_TIMESTAMP = daysToYear(MAX_YEAR + 1) * MILLIS_IN_DAY - 1;
+
+    // yyyy-MM-ddTHH:mm:ss.SSSZ split into the words "yyyy-MM-", "ddTHH:mm" and ":ss.SSSZ"; lane i is char i
+    static final int ISO_LENGTH = 24;
+    static final long NOT_ISO = Long.MIN_VALUE;
+    private static final long
+            ASCII_ZEROS = 0x3030303030303030L,
+            ISO_A_DIGITS = 0x00ffff00ffffffffL,
+            ISO_A_SEPARATORS = 0x2d00002d00000000L,
+            ISO_B_DIGITS = 0xffff00ffff00ffffL,
+            ISO_B_SEPARATORS = 0x00003a0000540000L,
+            ISO_B_DAY = 0x000000000000ffffL,
+            ISO_C_DIGITS = 0x00ffffff00ffff00L,
+            ISO_C_SEPARATORS = 0x5a0000002e00003aL;
 
     private static final int[] DAYS_IN_MONTH = new int[]{ 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
     /**
@@ -233,27 +828,44 @@ public final class TimeMillis {
     }
 
 
-    private static final long[] MONTHS;
+    /**
+     * Days from the first of January to the first of each month, in a common year and then in a leap year
+     */
+    private static final int[] MONTHS = new int[24];
+    static {
+        for (int month = 1, days = 0; month < 12; month++) {
+            days += DAYS_IN_MONTH[month - 1];
+            MONTHS[month] = days;
+            MONTHS[12 + month] = days + (month >= 2? 1: 0);
+        }
+    }
+
+
+    /**
+     * The Gregorian calendar repeats every 400 years, starting with a leap year such as 0000 or 2000.
+     * For the first day of each 256 day bucket of the cycle this holds the year of the cycle it falls in,
+     * whether that is a leap year and how many days into the cycle that year starts.
+     */
+    private static final int[] CYCLE_BUCKETS = new int[(DAYS_IN_400_YEARS >> CYCLE_BUCKET_SHIFT) + 1];
     static {
-        long nextMonth = 0;
-        MONTHS = new long[(MAX_YEAR - MIN_YEAR) * 12 + 1];
-        for (int year = MIN_YEAR, i = 0; year < MAX_YEAR; year++) {
-            boolean isLeapYear = year % 4 == 0;
-            for (int month = 0; month < 12; month++) {
-                final long timestamp = nextMonth,
-                    encoded = (timestamp << TIMESTAMP_SHIFT) |  (year << YEAR_SHIFT) | month;
-                assert (encoded >> TIMESTAMP_SHIFT) == timestamp;
-                assert (int)((encoded & YEAR_MASK) >> YEAR_SHIFT) == year;
-                assert (int)(encoded & MONTH_MASK) == month;
-                MONTHS[i++] = encoded;
-                nextMonth += (DAYS_IN_MONTH[month] + (isLeapYear && month == 1? 1: 0)) * MILLIS_IN_DAY;
+        for (int bucket = 0, year = 0, yearStart = 0; bucket < CYCLE_BUCKETS.length; bucket++) {
+            while (yearStart + (isLeapYear(year)? 366: 365) <= bucket << CYCLE_BUCKET_SHIFT) {
+                yearStart += isLeapYear(year++)? 366: 365;
             }
+            CYCLE_BUCKETS[bucket] = (year << CYCLE_BUCKET_YEAR_SHIFT) |
+                    (isLeapYear(year)? 1 << CYCLE_BUCKET_LEAP_SHIFT: 0) |
+                    yearStart;
         }
-        MONTHS[MONTHS.length - 1] = (nextMonth << TIMESTAMP_SHIFT) | (MAX_YEAR << YEAR_SHIFT);  // Jan 2038
     }
 
 
+    // Uniformly distributed over the whole supported range, so about a fifth are before 1970
     public static long nextRandomTimestamp(Random random) {
-        return Math.abs(random.nextLong()) % MAX_TIMESTAMP;
+        return nextRandomTimestamp(random, MIN_TIMESTAMP, MAX_TIMESTAMP + 1);
+    }
+
+    // Uniformly distributed from begin (inclusive) to end (exclusive)
+    public static long nextRandomTimestamp(Random random, long begin, long end) {
+        return begin + Math.floorMod(random.nextLong(), end - begin);
     }
 }
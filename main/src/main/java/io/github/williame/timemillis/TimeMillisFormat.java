@@ -0,0 +1,386 @@
+package io.github.williame.timemillis;
+
+import java.util.Arrays;
+
+/**
+ * Formats and parses timestamps in UTC in a fixed-width layout given by a pattern such as
+ * "yyyyMMdd HH:mm:ss", "dd/MM/yyyy" or the Apache log's "dd/MMM/yyyy:HH:mm:ss".
+ * <p>
+ * The letters are those of DateTimeFormatter, but only the fixed-width ones: yyyy, MM, MMM (English
+ * month abbreviations), dd, HH, mm, ss and SSS.  Any other char, or text in single quotes, is taken
+ * literally; '' is a quote.  Fields missing from a pattern parse as 1970-01-01T00:00:00.000.
+ * <p>
+ * The pattern is compiled once into a template holding the literal chars and a flat array of field
+ * operations at fixed offsets, so formatting copies the template and fills in the fields, and
+ * parsing checks the literals and reads the fields, without looking at the pattern again.  A
+ * yyyy-MM-dd or HH:mm:ss run is written in one go by the same code as TimeMillis.toIsoString.
+ * <p>
+ * Instances are immutable and thread-safe; compile a pattern once and keep it.
+ */
+public final class TimeMillisFormat {
+
+    private final String pattern;
+    // the literal chars at their offsets, and the pattern letters where the fields go
+    private final char[] template;
+    private final int[] literalOffsets;
+    // formatOps[i] is written at formatOffsets[i]; parseOps the same but with DATE and TIME split into their fields
+    private final byte[] formatOps, parseOps;
+    private final int[] formatOffsets, parseOffsets;
+    private final boolean hasDate;
+    // whether every literal is ASCII, so the template can be written as bytes
+    private final boolean ascii;
+
+    private TimeMillisFormat(String pattern) {
+        this.pattern = pattern;
+        final StringBuilder chars = new StringBuilder();
+        final int[] literals = new int[pattern.length()], ops = new int[pattern.length()], offsets = new int[pattern.length()];
+        int literalCount = 0, opCount = 0;
+        for (int i = 0; i < pattern.length(); ) {
+            final char c = pattern.charAt(i);
+            if (c == '\'' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                literals[literalCount++] = chars.length();
+                chars.append(c);
+                i += 2;
+            } else if (c == '\'') {
+                // quoted text, in which '' is a quote
+                for (i++; ; i++) {
+                    if (i == pattern.length()) {
+                        throw new IllegalArgumentException("unterminated quote in pattern: " + pattern);
+                    } else if (pattern.charAt(i) == '\'') {
+                        if (i + 1 == pattern.length() || pattern.charAt(i + 1) != '\'') {
+                            break;
+                        }
+                        i++;
+                    }
+                    literals[literalCount++] = chars.length();
+                    chars.append(pattern.charAt(i));
+                }
+                i++;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int end = i + 1;
+                while (end < pattern.length() && pattern.charAt(end) == c) {
+                    end++;
+                }
+                final byte op = field(pattern.substring(i, end));
+                if (op < 0) {
+                    throw new IllegalArgumentException("unsupported field " + pattern.substring(i, end) + " in pattern: " + pattern);
+                }
+                ops[opCount] = op;
+                offsets[opCount++] = chars.length();
+                chars.append(pattern, i, end);
+                i = end;
+            } else {
+                literals[literalCount++] = chars.length();
+                chars.append(c);
+                i++;
+            }
+        }
+        template = chars.toString().toCharArray();
+        boolean ascii = true;
+        for (int i = 0; i < literalCount; i++) {
+            ascii &= template[literals[i]] < 0x80;
+        }
+        this.ascii = ascii;
+        literalOffsets = Arrays.copyOf(literals, literalCount);
+        parseOps = new byte[opCount];
+        parseOffsets = Arrays.copyOf(offsets, opCount);
+        boolean hasDate = false;
+        for (int i = 0; i < opCount; i++) {
+            parseOps[i] = (byte) ops[i];
+            hasDate |= ops[i] == YEAR || ops[i] == MONTH || ops[i] == MONTH_NAME || ops[i] == DAY;
+        }
+        this.hasDate = hasDate;
+        // fuse the ISO runs, whose separators are then written by the ISO code too
+        int fusedCount = 0;
+        for (int i = 0; i < opCount; i++) {
+            offsets[fusedCount] = parseOffsets[i];
+            if (isRun(i, YEAR, MONTH, DAY, '-')) {
+                ops[fusedCount++] = DATE;
+                i += 2;
+            } else if (isRun(i, HOUR, MINUTE, SECOND, ':')) {
+                ops[fusedCount++] = TIME;
+                i += 2;
+            } else {
+                ops[fusedCount++] = parseOps[i];
+            }
+        }
+        formatOps = new byte[fusedCount];
+        formatOffsets = Arrays.copyOf(offsets, fusedCount);
+        for (int i = 0; i < fusedCount; i++) {
+            formatOps[i] = (byte) ops[i];
+        }
+    }
+
+    public static TimeMillisFormat compile(String pattern) {
+        return new TimeMillisFormat(pattern);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    // Every formatted timestamp, and every one parsed, is exactly this many chars
+    public int length() {
+        return template.length;
+    }
+
+    public String format(long timestamp) {
+        final char[] chars = new char[template.length];
+        format(timestamp, chars, 0);
+        return new String(chars);
+    }
+
+    // Writes length() chars at dst[off] and returns the offset just past them; like TimeMillis.toIsoString, only
+    // timestamps in years 0000 to 9999 are formatted and others throw IllegalArgumentException
+    public int format(long timestamp, char[] dst, int off) {
+        TimeMillis.checkFormatRange(timestamp);
+        final int day = TimeMillis.dayOfEpoch(timestamp);
+        final int millisOfDay = (int) (timestamp - (long) day * MILLIS_IN_DAY);
+        final int yearAndDays = hasDate? TimeMillis.toYearAndDays(day): 0;
+        final int monthAndDays = hasDate? TimeMillis.toMonthAndDays(yearAndDays): 0;
+        System.arraycopy(template, 0, dst, off, template.length);
+        for (int i = 0; i < formatOps.length; i++) {
+            final int ofs = off + formatOffsets[i];
+            switch (formatOps[i]) {
+                case DATE:
+                    TimeSecs.doToYYYYmmdd(dst, ofs, yearAndDays);
+                    break;
+                case TIME:
+                    TimeSecs.doToHHMMSS(dst, ofs, millisOfDay / MILLIS);
+                    break;
+                case YEAR:
+                    TimeSecs.emit4(dst, ofs, yearAndDays >> 9);
+                    break;
+                case MONTH:
+                    TimeSecs.emit2(dst, ofs, 1 + (monthAndDays >> 5));
+                    break;
+                case MONTH_NAME:
+                    MONTH_NAMES.getChars((monthAndDays >> 5) * 3, (monthAndDays >> 5) * 3 + 3, dst, ofs);
+                    break;
+                case DAY:
+                    TimeSecs.emit2(dst, ofs, 1 + (monthAndDays & 31));
+                    break;
+                case HOUR:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS_IN_HOUR);
+                    break;
+                case MINUTE:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS_IN_MINUTE % 60);
+                    break;
+                case SECOND:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS % 60);
+                    break;
+                default:
+                    TimeSecs.emit3(dst, ofs, millisOfDay % MILLIS);
+            }
+        }
+        return off + template.length;
+    }
+
+    // As ASCII, so only for patterns whose literals are all ASCII; others throw IllegalStateException
+    public int format(long timestamp, byte[] dst, int off) {
+        if (!ascii) {
+            throw new IllegalStateException("pattern has non-ASCII literals so can't be written as bytes: " + pattern);
+        }
+        TimeMillis.checkFormatRange(timestamp);
+        final int day = TimeMillis.dayOfEpoch(timestamp);
+        final int millisOfDay = (int) (timestamp - (long) day * MILLIS_IN_DAY);
+        final int yearAndDays = hasDate? TimeMillis.toYearAndDays(day): 0;
+        final int monthAndDays = hasDate? TimeMillis.toMonthAndDays(yearAndDays): 0;
+        for (int offset: literalOffsets) {
+            dst[off + offset] = (byte) template[offset];
+        }
+        for (int i = 0; i < formatOps.length; i++) {
+            final int ofs = off + formatOffsets[i];
+            switch (formatOps[i]) {
+                case DATE:
+                    TimeSecs.doToYYYYmmdd(dst, ofs, yearAndDays);
+                    break;
+                case TIME:
+                    TimeSecs.doToHHMMSS(dst, ofs, millisOfDay / MILLIS);
+                    break;
+                case YEAR:
+                    TimeSecs.emit4(dst, ofs, yearAndDays >> 9);
+                    break;
+                case MONTH:
+                    TimeSecs.emit2(dst, ofs, 1 + (monthAndDays >> 5));
+                    break;
+                case MONTH_NAME:
+                    for (int j = 0; j < 3; j++) {
+                        dst[ofs + j] = (byte) MONTH_NAMES.charAt((monthAndDays >> 5) * 3 + j);
+                    }
+                    break;
+                case DAY:
+                    TimeSecs.emit2(dst, ofs, 1 + (monthAndDays & 31));
+                    break;
+                case HOUR:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS_IN_HOUR);
+                    break;
+                case MINUTE:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS_IN_MINUTE % 60);
+                    break;
+                case SECOND:
+                    TimeSecs.emit2(dst, ofs, millisOfDay / MILLIS % 60);
+                    break;
+                default:
+                    TimeSecs.emit3(dst, ofs, millisOfDay % MILLIS);
+            }
+        }
+        return off + template.length;
+    }
+
+    // Returns TimeMillis.INVALID unless the input is exactly length() chars in the layout with every field in range
+    public long parse(CharSequence timestamp) {
+        return parse(timestamp, 0, timestamp.length());
+    }
+
+    public long parse(CharSequence timestamp, int begin, int end) {
+        return end - begin != template.length? TimeMillis.INVALID: parse((Object) timestamp, begin);
+    }
+
+    public long parse(char[] timestamp, int begin, int end) {
+        return end - begin != template.length? TimeMillis.INVALID: parse((Object) timestamp, begin);
+    }
+
+    public long parse(byte[] timestamp, int begin, int end) {
+        return end - begin != template.length? TimeMillis.INVALID: parse((Object) timestamp, begin);
+    }
+
+    // As IsoParser, written once and reading every input kind in place through IsoParser.charAt
+    private long parse(Object s, int begin) {
+        for (int offset: literalOffsets) {
+            if (IsoParser.charAt(s, begin + offset) != template[offset]) {
+                return TimeMillis.INVALID;
+            }
+        }
+        int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, millis = 0, bad = 0;
+        for (int i = 0; i < parseOps.length; i++) {
+            final int ofs = begin + parseOffsets[i];
+            switch (parseOps[i]) {
+                case YEAR:
+                    bad |= year = digits(s, ofs, 4);
+                    break;
+                case MONTH:
+                    bad |= month = digits(s, ofs, 2);
+                    break;
+                case MONTH_NAME:
+                    bad |= month = monthOfName(s, ofs);
+                    break;
+                case DAY:
+                    bad |= day = digits(s, ofs, 2);
+                    break;
+                case HOUR:
+                    bad |= hour = digits(s, ofs, 2);
+                    break;
+                case MINUTE:
+                    bad |= minute = digits(s, ofs, 2);
+                    break;
+                case SECOND:
+                    bad |= second = digits(s, ofs, 2);
+                    break;
+                default:
+                    bad |= millis = digits(s, ofs, 3);
+            }
+        }
+        if (bad < 0 || !TimeMillis.isValid(year, month, day, hour, minute, second)) {
+            return TimeMillis.INVALID;
+        }
+        return TimeMillis.of(year, month, day, hour, minute, second, millis);
+    }
+
+    // The count digits at pos as a number, or -1 if they aren't all digits
+    private static int digits(Object s, int pos, int count) {
+        int ret = 0;
+        for (int i = pos; i < pos + count; i++) {
+            final int digit = IsoParser.charAt(s, i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            ret = ret * 10 + digit;
+        }
+        return ret;
+    }
+
+    // 1 to 12, or -1 if the three chars aren't a month's abbreviation
+    private static int monthOfName(Object s, int pos) {
+        final int c0 = IsoParser.charAt(s, pos), c1 = IsoParser.charAt(s, pos + 1), c2 = IsoParser.charAt(s, pos + 2);
+        if ((c0 | c1 | c2) >= 0x80) {
+            // a char wider than the byte it is packed into could alias a month
+            return -1;
+        }
+        final int key = c0 << 16 | c1 << 8 | c2;
+        for (int month = 0; month < MONTH_KEYS.length; month++) {
+            if (MONTH_KEYS[month] == key) {
+                return month + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isRun(int i, byte first, byte second, byte third, char separator) {
+        return i + 2 < parseOps.length &&
+                parseOps[i] == first && parseOps[i + 1] == second && parseOps[i + 2] == third &&
+                parseOffsets[i + 1] == parseOffsets[i] + (first == YEAR? 5: 3) &&
+                parseOffsets[i + 2] == parseOffsets[i + 1] + 3 &&
+                template[parseOffsets[i + 1] - 1] == separator && template[parseOffsets[i + 2] - 1] == separator;
+    }
+
+    // The op for a run of pattern letters, or -1
+    private static byte field(String letters) {
+        switch (letters) {
+            case "yyyy":
+                return YEAR;
+            case "MM":
+                return MONTH;
+            case "MMM":
+                return MONTH_NAME;
+            case "dd":
+                return DAY;
+            case "HH":
+                return HOUR;
+            case "mm":
+                return MINUTE;
+            case "ss":
+                return SECOND;
+            case "SSS":
+                return MILLIS_FIELD;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static final byte
+            YEAR = 0,
+            MONTH = 1,
+            MONTH_NAME = 2,
+            DAY = 3,
+            HOUR = 4,
+            MINUTE = 5,
+            SECOND = 6,
+            MILLIS_FIELD = 7,
+            // yyyy-MM-dd and HH:mm:ss, when formatting
+            DATE = 8,
+            TIME = 9;
+
+    private static final String MONTH_NAMES = "JanFebMarAprMayJunJulAugSepOctNovDec";
+    /**
+     * The three chars of each month's abbreviation as one int, so that parsing can compare them at once
+     */
+    private static final int[] MONTH_KEYS = new int[12];
+    static {
+        for (int month = 0; month < MONTH_KEYS.length; month++) {
+            MONTH_KEYS[month] = MONTH_NAMES.charAt(month * 3) << 16 | MONTH_NAMES.charAt(month * 3 + 1) << 8 |
+                    MONTH_NAMES.charAt(month * 3 + 2);
+        }
+    }
+
+    private static final int
+            MILLIS = 1000,
+            MILLIS_IN_MINUTE = 60 * MILLIS,
+            MILLIS_IN_HOUR = MILLIS_IN_MINUTE * 60;
+    private static final long MILLIS_IN_DAY = MILLIS_IN_HOUR * 24L;
+}
@@ -0,0 +1,117 @@
+package io.github.williame.timemillis;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Crossings between epoch millis and java.time for APIs that want Instants, LocalDates and the like,
+ * without the intermediate objects the java.time conversions make.  Values are read through their
+ * getters and written straight into the caller's buffers, and LocalDates for recent days are cached.
+ * <p>
+ * Seconds are handled as 64-bit throughout: java.time reaches far beyond TimeMillis's years, and
+ * Instants outside 0000 to 9999 are formatted by Instant.toString rather than wrapping around.
+ */
+public final class TimeMillisInterop {
+
+    private TimeMillisInterop() {}
+
+    // The same as instant.toEpochMilli(), rounding down to the millisecond; throws ArithmeticException if
+    // out of range of a long
+    public static long toMillis(Instant instant) {
+        final long seconds = instant.getEpochSecond();
+        final int millis = instant.getNano() / NANOS_IN_MILLI;
+        if (seconds < 0 && millis > 0) {
+            // a second on, so the earliest instants don't overflow before the millis are added back
+            return Math.addExact(Math.multiplyExact(seconds + 1, MILLIS), millis - MILLIS);
+        }
+        return Math.addExact(Math.multiplyExact(seconds, MILLIS), millis);
+    }
+
+    // The date and time taken as UTC, as dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() is
+    public static long toMillis(LocalDateTime dateTime) {
+        return Math.addExact(Math.multiplyExact(dateTime.toLocalDate().toEpochDay(), MILLIS_IN_DAY),
+                dateTime.toLocalTime().toNanoOfDay() / NANOS_IN_MILLI);
+    }
+
+    // The start of the day in UTC
+    public static long toMillis(LocalDate date) {
+        return Math.multiplyExact(date.toEpochDay(), MILLIS_IN_DAY);
+    }
+
+    public static long toMillis(OffsetDateTime dateTime) {
+        return Math.subtractExact(toMillis(dateTime.toLocalDateTime()), dateTime.getOffset().getTotalSeconds() * MILLIS);
+    }
+
+    public static long toMillis(ZonedDateTime dateTime) {
+        return Math.subtractExact(toMillis(dateTime.toLocalDateTime()), dateTime.getOffset().getTotalSeconds() * MILLIS);
+    }
+
+    /**
+     * The UTC date of the timestamp, the same instance each time for days that are still in the cache.  The
+     * cache holds a LocalDate for each of 1024 consecutive days, so a service stamping events around now
+     * only makes one a day.
+     */
+    public static LocalDate toLocalDate(long timestamp) {
+        final long day = TimeMillis.floorDiv(timestamp, MILLIS_IN_DAY);
+        final int slot = (int) day & (DATE_CACHE_SIZE - 1);
+        LocalDate date = DATE_CACHE[slot];
+        if (date == null || date.toEpochDay() != day) {
+            // racing threads may both make one; LocalDate is immutable, so either is safe to publish
+            DATE_CACHE[slot] = date = LocalDate.ofEpochDay(day);
+        }
+        return date;
+    }
+
+    // Writes the same chars as instant.toString() (at most 38) at dst[off] and returns the offset just past them
+    public static int formatIso(Instant instant, char[] dst, int off) {
+        final long secs = instant.getEpochSecond();
+        if (!TimeSecs.inRange(secs)) {
+            return copy(instant.toString(), dst, off);
+        }
+        int end = TimeSecs.doToDateTimeNanos(dst, off, secs, instant.getNano(), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    public static int formatIso(Instant instant, byte[] dst, int off) {
+        final long secs = instant.getEpochSecond();
+        if (!TimeSecs.inRange(secs)) {
+            return copy(instant.toString(), dst, off);
+        }
+        int end = TimeSecs.doToDateTimeNanos(dst, off, secs, instant.getNano(), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    public static StringBuilder toIsoString(Instant instant, StringBuilder out) {
+        final long secs = instant.getEpochSecond();
+        if (!TimeSecs.inRange(secs)) {
+            return out.append(instant);
+        }
+        return TimeSecs.toIsoDateTimeNanos(secs, instant.getNano(), out);
+    }
+
+    private static int copy(String s, char[] dst, int off) {
+        s.getChars(0, s.length(), dst, off);
+        return off + s.length();
+    }
+
+    // Only for Instant.toString, which is all ASCII, so narrowing each char is safe
+    private static int copy(String s, byte[] dst, int off) {
+        for (int i = 0; i < s.length(); i++) {
+            assert s.charAt(i) < 0x80: s;
+            dst[off + i] = (byte) s.charAt(i);
+        }
+        return off + s.length();
+    }
+
+    private static final int NANOS_IN_MILLI = 1000_000;
+    private static final long
+            MILLIS = 1000,
+            MILLIS_IN_DAY = 24 * 60 * 60 * MILLIS;
+    private static final int DATE_CACHE_SIZE = 1024;
+    private static final LocalDate[] DATE_CACHE = new LocalDate[DATE_CACHE_SIZE];
+}
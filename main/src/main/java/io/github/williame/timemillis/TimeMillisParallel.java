@@ -0,0 +1,220 @@
+package io.github.williame.timemillis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * TimeMillis's bulk conversions for arrays of hundreds of millions of timestamps, e.g. backfills,
+ * split into chunks that run at the same time on a ForkJoinPool (the common pool unless one is
+ * given) or any other Executor.  Chunks are a few thousand timestamps, so each chunk's input and
+ * output fit in a core's cache, and nothing is allocated per timestamp.
+ * <p>
+ * ISO output is fixed-width, formatIsoFixed's 24 chars and a newline a line, so each chunk writes
+ * its own slice of the one output array.  Each call returns once all its chunks are done.
+ */
+public final class TimeMillisParallel {
+
+    private TimeMillisParallel() {}
+
+    // Writes in[inOffset + i] as the line of 25 bytes at out[outOffset + i * 25], for each i below count
+    public static void formatIsoLines(long[] in, int inOffset, byte[] out, int outOffset, int count) {
+        formatIsoLines(in, inOffset, out, outOffset, count, ForkJoinPool.commonPool());
+    }
+
+    public static void formatIsoLines(long[] in, int inOffset, byte[] out, int outOffset, int count, Executor executor) {
+        TimeMillis.checkBulkRange(in.length, inOffset, Integer.MAX_VALUE, 0, count);
+        if (outOffset < 0 || (long) count * LINE_LENGTH > out.length - (long) outOffset) {
+            throw new IndexOutOfBoundsException("out: " + outOffset + "+" + count + " lines of " + out.length);
+        }
+        forEachChunk(count, executor, (begin, end) -> {
+            for (int i = begin, pos = outOffset + begin * LINE_LENGTH; i < end; i++) {
+                pos = TimeMillis.formatIsoFixed(in[inOffset + i], out, pos);
+                out[pos++] = '\n';
+            }
+        });
+    }
+
+    /**
+     * Parses the lines of in[begin .. end) into out[outOffset ..] and returns how many there were.  Lines may
+     * be of any length and end in '\n' or "\r\n"; the last needs no line end.  Lines that are not strictly
+     * ISO-8601 give TimeMillis.INVALID, as tryParse does.  The input is split on line starts, each part's
+     * lines are counted and then parsed, both in parallel, so out must have room for them all.
+     */
+    public static int parseLines(byte[] in, int begin, int end, long[] out, int outOffset) {
+        return parseLines(in, begin, end, out, outOffset, ForkJoinPool.commonPool());
+    }
+
+    public static int parseLines(byte[] in, int begin, int end, long[] out, int outOffset, Executor executor) {
+        if (begin < 0 || begin > end || end > in.length || outOffset < 0 || outOffset > out.length) {
+            throw new IndexOutOfBoundsException("in: " + begin + " to " + end + " of " + in.length +
+                    ", out: " + outOffset + " of " + out.length);
+        }
+        final int parts = parts(begin, end);
+        final int[] starts = new int[parts + 1], lines = new int[parts + 1];
+        // each part is the lines starting in it, so a line longer than a part leaves the parts it covers empty
+        for (int p = 0; p < parts; p++) {
+            starts[p] = lineStart(in, begin, end, begin + p * PART_BYTES);
+        }
+        starts[parts] = end;
+        forEachChunk(parts, 1, executor, (first, last) -> {
+            for (int p = first; p < last; p++) {
+                lines[p + 1] = countLines(in, starts[p], starts[p + 1], end);
+            }
+        });
+        for (int p = 0; p < parts; p++) {
+            lines[p + 1] += lines[p];
+        }
+        if (lines[parts] > out.length - outOffset) {
+            throw new IndexOutOfBoundsException("out: " + outOffset + "+" + lines[parts] + " of " + out.length);
+        }
+        forEachChunk(parts, 1, executor, (first, last) -> {
+            for (int p = first; p < last; p++) {
+                parseLines(in, starts[p], starts[p + 1], end, out, outOffset + lines[p]);
+            }
+        });
+        return lines[parts];
+    }
+
+    // Sets out[outOffset + i] to the day of epoch of in[inOffset + i], for each i below count
+    public static void toDayOfEpoch(long[] in, int inOffset, int[] out, int outOffset, int count) {
+        toDayOfEpoch(in, inOffset, out, outOffset, count, ForkJoinPool.commonPool());
+    }
+
+    public static void toDayOfEpoch(long[] in, int inOffset, int[] out, int outOffset, int count, Executor executor) {
+        TimeMillis.checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        forEachChunk(count, executor, (begin, end) -> {
+            for (int i = begin; i < end; i++) {
+                out[outOffset + i] = TimeMillis.dayOfEpoch(in[inOffset + i]);
+            }
+        });
+    }
+
+    // Sets out[outOffset + i] to operator(in[inOffset + i]), e.g. with TimeMillis::truncateToHours; in and out
+    // may be the same array
+    public static void apply(long[] in, int inOffset, long[] out, int outOffset, int count, LongUnaryOperator operator) {
+        apply(in, inOffset, out, outOffset, count, operator, ForkJoinPool.commonPool());
+    }
+
+    public static void apply(long[] in, int inOffset, long[] out, int outOffset, int count, LongUnaryOperator operator,
+                             Executor executor) {
+        TimeMillis.checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        forEachChunk(count, executor, (begin, end) -> {
+            for (int i = begin; i < end; i++) {
+                out[outOffset + i] = operator.applyAsLong(in[inOffset + i]);
+            }
+        });
+    }
+
+    // The parts of PART_BYTES, the last maybe shorter, in [begin .. end); rounding up in int would overflow near 2 GB
+    static int parts(int begin, int end) {
+        final int bytes = end - begin;
+        return bytes / PART_BYTES + (bytes % PART_BYTES != 0? 1: 0);
+    }
+
+    // The first line start in in[pos .. end), or end
+    private static int lineStart(byte[] in, int begin, int end, int pos) {
+        if (pos == begin) {
+            return pos;
+        }
+        while (pos < end && in[pos - 1] != '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    // The lines starting in in[pos .. partEnd)
+    private static int countLines(byte[] in, int pos, int partEnd, int end) {
+        int lines = 0;
+        while (pos < partEnd) {
+            lines++;
+            pos = lineEnd(in, pos, end) + 1;
+        }
+        return lines;
+    }
+
+    private static void parseLines(byte[] in, int pos, int partEnd, int end, long[] out, int outOffset) {
+        while (pos < partEnd) {
+            final int lineEnd = lineEnd(in, pos, end);
+            final int timestampEnd = lineEnd > pos && in[lineEnd - 1] == '\r'? lineEnd - 1: lineEnd;
+            out[outOffset++] = TimeMillis.tryParse(in, pos, timestampEnd);
+            pos = lineEnd + 1;
+        }
+    }
+
+    private static int lineEnd(byte[] in, int pos, int end) {
+        while (pos < end && in[pos] != '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        void run(int begin, int end);
+    }
+
+    private static void forEachChunk(int count, Executor executor, Chunk chunk) {
+        forEachChunk(count, CHUNK, executor, chunk);
+    }
+
+    // Runs chunk over [0, count) in pieces of at most chunkSize, on the executor, and waits for them all
+    private static void forEachChunk(int count, int chunkSize, Executor executor, Chunk chunk) {
+        if (count <= chunkSize) {
+            chunk.run(0, count);
+        } else if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new Chunks(chunk, chunkSize, 0, count));
+        } else {
+            final int chunks = (count + chunkSize - 1) / chunkSize;
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+            final IntConsumer run = c -> chunk.run(c * chunkSize, Math.min(count, (c + 1) * chunkSize));
+            for (int c = 0; c < chunks; c++) {
+                final int index = c;
+                futures[c] = CompletableFuture.runAsync(() -> run.accept(index), executor);
+            }
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Halves the range until it is a chunk, so idle workers steal the bigger halves first
+    private static final class Chunks extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final Chunk chunk;
+        final int chunkSize, begin, end;
+
+        Chunks(Chunk chunk, int chunkSize, int begin, int end) {
+            this.chunk = chunk;
+            this.chunkSize = chunkSize;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin <= chunkSize) {
+                chunk.run(begin, end);
+            } else {
+                final int middle = begin + (end - begin) / 2;
+                invokeAll(new Chunks(chunk, chunkSize, begin, middle), new Chunks(chunk, chunkSize, middle, end));
+            }
+        }
+    }
+
+    public static final int LINE_LENGTH = TimeMillis.ISO_LENGTH + 1;
+    // timestamps a chunk: 64KB of longs in, and 200KB of lines out, within a core's L2
+    private static final int CHUNK = 8192;
+    static final int PART_BYTES = CHUNK * LINE_LENGTH;
+}
@@ -0,0 +1,218 @@
+package io.github.williame.timemillis;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local time field access and truncation for a time zone, over timestamps as epoch millis.
+ * <p>
+ * The zone's offset transitions are expanded into sorted arrays when the instance is built,
+ * so each call is a binary search plus the UTC math in {@link TimeMillis} and doesn't allocate.
+ * Transitions are precomputed up to the end of {@link #DEFAULT_UNTIL_YEAR} (or the year given to
+ * {@link #of(ZoneId, int)}); later timestamps in zones that still have daylight saving rules
+ * fall back to {@link ZoneRules}, which does allocate.
+ * <p>
+ * Instances are immutable and thread-safe; build one per zone and keep it.
+ */
+public final class TimeMillisZone {
+
+    public static final int DEFAULT_UNTIL_YEAR = 2100;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final long untilTimestamp;
+    private final boolean hasRulesAfter;
+    // UTC timestamps at which the offset changes; offsets[i] applies before transitions[i]
+    // and offsets[transitions.length] after the last one
+    private final long[] transitions;
+    private final int[] offsets;
+    private final String[] offsetIds;
+    // transitions[i] + offsets[i]: the local time at which the offset before each transition stops applying
+    private final long[] localEnds;
+
+    private TimeMillisZone(ZoneId zone, int untilYear) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.untilTimestamp = TimeMillis.of(untilYear + 1, 1, 1);
+        this.hasRulesAfter = !rules.getTransitionRules().isEmpty();
+        List<ZoneOffsetTransition> list = new ArrayList<>();
+        for (ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(TimeMillis.of(0, 1, 1)));
+             transition != null && transition.getInstant().toEpochMilli() < untilTimestamp;
+             transition = rules.nextTransition(transition.getInstant())) {
+            list.add(transition);
+        }
+        final int count = list.size();
+        transitions = new long[count];
+        offsets = new int[count + 1];
+        offsetIds = new String[count + 1];
+        localEnds = new long[count];
+        ZoneOffset offset = count > 0? list.get(0).getOffsetBefore(): rules.getOffset(Instant.ofEpochMilli(untilTimestamp));
+        offsets[0] = offset.getTotalSeconds() * (int) MILLIS;
+        offsetIds[0] = offset.getId();
+        for (int i = 0; i < count; i++) {
+            ZoneOffsetTransition transition = list.get(i);
+            transitions[i] = transition.getInstant().toEpochMilli();
+            localEnds[i] = transitions[i] + offsets[i];
+            offset = transition.getOffsetAfter();
+            offsets[i + 1] = offset.getTotalSeconds() * (int) MILLIS;
+            offsetIds[i + 1] = offset.getId();
+        }
+    }
+
+    public static TimeMillisZone of(ZoneId zone) {
+        return of(zone, DEFAULT_UNTIL_YEAR);
+    }
+
+    public static TimeMillisZone of(ZoneId zone, int untilYear) {
+        return new TimeMillisZone(zone, untilYear);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public int getOffsetMillis(long timestamp) {
+        if (timestamp >= untilTimestamp && hasRulesAfter) {
+            return rules.getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * (int) MILLIS;
+        }
+        return offsets[segment(timestamp)];
+    }
+
+    // The wall clock time in the zone, as if it were a UTC timestamp; can be used with all of TimeMillis
+    public long toLocal(long timestamp) {
+        return timestamp + getOffsetMillis(timestamp);
+    }
+
+    /**
+     * The timestamp at which the wall clock in the zone shows the local time, resolved like
+     * {@link java.time.ZonedDateTime#ofLocal}: in a gap the local time is moved later by the length
+     * of the gap, and in an overlap the preferred offset is used if it is valid, else the earlier one.
+     */
+    public long fromLocal(long local, int preferredOffsetMillis) {
+        if (local - MAX_OFFSET_MILLIS >= untilTimestamp && hasRulesAfter) {
+            return fromLocalByRules(local, preferredOffsetMillis);
+        }
+        int i = Arrays.binarySearch(localEnds, local);
+        i = i < 0? -i - 1: i + 1; // first segment whose local range ends after local
+        final int offset = offsets[i];
+        if (i > 0 && local < transitions[i - 1] + offset) {
+            return local - offsets[i - 1]; // in the gap
+        }
+        if (i < transitions.length && local >= transitions[i] + offsets[i + 1] && preferredOffsetMillis == offsets[i + 1]) {
+            return local - preferredOffsetMillis; // in the overlap, preferring the later offset
+        }
+        return local - offset;
+    }
+
+    public long fromLocal(long local) {
+        return fromLocal(local, Integer.MIN_VALUE);
+    }
+
+    public int getYear(long timestamp) {
+        return TimeMillis.getYear(toLocal(timestamp));
+    }
+
+    // 1 to 12
+    public int getMonth(long timestamp) {
+        return TimeMillis.getMonth(toLocal(timestamp));
+    }
+
+    // 1 to 31
+    public int dayOfMonth(long timestamp) {
+        return TimeMillis.dayOfMonth(toLocal(timestamp));
+    }
+
+    // 1 to 365 (or 366 in a leap year)
+    public int dayOfYear(long timestamp) {
+        return TimeMillis.dayOfYear(toLocal(timestamp));
+    }
+
+    // 1 to 7 (Monday to Sunday) following the ISO-8601 standard
+    public int dayOfWeek(long timestamp) {
+        return TimeMillis.dayOfWeek(toLocal(timestamp));
+    }
+
+    // 0 to 23
+    public int getHour(long timestamp) {
+        return TimeMillis.getHour(toLocal(timestamp));
+    }
+
+    // 0 to 59
+    public int getMinute(long timestamp) {
+        return TimeMillis.getMinute(toLocal(timestamp));
+    }
+
+    // Start of the local day, keeping the current offset if the local time is ambiguous
+    public long truncateToDays(long timestamp) {
+        final int offset = getOffsetMillis(timestamp);
+        return fromLocal(TimeMillis.truncateToDays(timestamp + offset), offset);
+    }
+
+    // Start of the first day of the local month, as LocalDate.atStartOfDay(zone) would resolve it
+    public long truncateToMonths(long timestamp) {
+        return fromLocal(TimeMillis.truncateToMonths(toLocal(timestamp)));
+    }
+
+    public long truncateToHours(long timestamp) {
+        final int offset = getOffsetMillis(timestamp);
+        return fromLocal(TimeMillis.truncateToHours(timestamp + offset), offset);
+    }
+
+    // yyyy-MM-ddTHH:mm:ss[.SSS] followed by the offset, e.g. +02:00 (or Z when it is zero)
+    public String toIsoString(long timestamp) {
+        return toIsoString(timestamp, new StringBuilder(32)).toString();
+    }
+
+    public StringBuilder toIsoString(long timestamp, StringBuilder out) {
+        final String offsetId;
+        final long local;
+        if (timestamp >= untilTimestamp && hasRulesAfter) {
+            final ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(timestamp));
+            offsetId = offset.getId();
+            local = timestamp + offset.getTotalSeconds() * MILLIS;
+        } else {
+            final int segment = segment(timestamp);
+            offsetId = offsetIds[segment];
+            local = timestamp + offsets[segment];
+        }
+        return TimeSecs.toDateTime(TimeMillis.floorDiv(local, MILLIS), (int) TimeMillis.floorMod(local, MILLIS), 'T', out)
+                .append(offsetId);
+    }
+
+    // Index into offsets for the timestamp
+    private int segment(long timestamp) {
+        final int i = Arrays.binarySearch(transitions, timestamp);
+        return i < 0? -i - 1: i + 1;
+    }
+
+    private long fromLocalByRules(long local, int preferredOffsetMillis) {
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, MILLIS),
+                (int) Math.floorMod(local, MILLIS) * 1_000_000, ZoneOffset.UTC);
+        final List<ZoneOffset> validOffsets = rules.getValidOffsets(dateTime);
+        if (validOffsets.isEmpty()) {
+            return local - rules.getTransition(dateTime).getOffsetBefore().getTotalSeconds() * MILLIS;
+        }
+        for (ZoneOffset offset: validOffsets) {
+            if (offset.getTotalSeconds() * MILLIS == preferredOffsetMillis) {
+                return local - preferredOffsetMillis;
+            }
+        }
+        return local - validOffsets.get(0).getTotalSeconds() * MILLIS;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeMillisZone[" + zone + ", " + transitions.length + " transitions]";
+    }
+
+    private static final long
+            MILLIS = 1000,
+            MAX_OFFSET_MILLIS = 18 * 60 * 60 * MILLIS;
+}
@@ -0,0 +1,249 @@
+package io.github.williame.timemillis;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * TimeMillis for timestamps as epoch nanos, as tracing and market data carry them.  The calendar
+ * is TimeMillis's own; only the units differ.
+ * <p>
+ * Parsing is strict: it is IsoParser's, and anything that isn't a well-formed ISO timestamp with
+ * valid fields gives INVALID.  TimeMillis.parse is lenient and reads what it can of other layouts,
+ * such as a space for the 'T' or a short fraction, so the two can disagree on the same input.
+ * <p>
+ * A long of nanos only reaches from 1677-09-21 to 2262-04-11, and that is the range supported.
+ */
+public final class TimeNanos {
+
+    // Returned by parse for malformed or out of range input; never a valid timestamp
+    public static final long INVALID = IsoParser.INVALID;
+
+    private TimeNanos() {}
+
+    // The fraction is written as Instant.toString writes it: 3, 6 or 9 digits, or none
+    public static String toIsoString(long timestamp) {
+        char[] chars = new char[30];
+        return new String(chars, 0, formatIso(timestamp, chars, 0));
+    }
+
+    public static StringBuilder toIsoString(long timestamp, StringBuilder out) {
+        return TimeSecs.toIsoDateTimeNanos(TimeMillis.floorDiv(timestamp, NANOS), getNanoseconds(timestamp), out);
+    }
+
+    // Writes the same chars as toIsoString (at most 30) at dst[off] and returns the offset just past them
+    public static int formatIso(long timestamp, char[] dst, int off) {
+        int end = TimeSecs.doToDateTimeNanos(dst, off, TimeMillis.floorDiv(timestamp, NANOS), getNanoseconds(timestamp), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    public static int formatIso(long timestamp, byte[] dst, int off) {
+        int end = TimeSecs.doToDateTimeNanos(dst, off, TimeMillis.floorDiv(timestamp, NANOS), getNanoseconds(timestamp), 'T');
+        dst[end++] = 'Z';
+        return end;
+    }
+
+    // Writes at the buffer's position and advances it; returns the new position
+    public static int formatIso(long timestamp, ByteBuffer dst) {
+        final int pos = dst.position();
+        if (dst.remaining() < 30) {
+            throw new BufferOverflowException();
+        }
+        int end = TimeSecs.doToDateTimeNanos(dst, pos, TimeMillis.floorDiv(timestamp, NANOS), getNanoseconds(timestamp), 'T');
+        dst.put(end++, (byte) 'Z');
+        ((Buffer) dst).position(end); // Buffer's signature so it still links on Java 8
+        return end;
+    }
+
+    // Strictly ISO-8601, with up to 9 fraction digits; see IsoParser
+    public static long parse(CharSequence timestamp) {
+        return IsoParser.parseNanos(timestamp);
+    }
+
+    public static long parse(CharSequence timestamp, int begin, int end) {
+        return IsoParser.parseNanos(timestamp, begin, end);
+    }
+
+    public static long parse(char[] timestamp, int begin, int end) {
+        return IsoParser.parseNanos(timestamp, begin, end);
+    }
+
+    public static long parse(byte[] timestamp, int begin, int end) {
+        return IsoParser.parseNanos(timestamp, begin, end);
+    }
+
+    public static long parse(ByteBuffer timestamp, int pos, int len) {
+        return IsoParser.parseNanos(timestamp, pos, len);
+    }
+
+    public static long of(int year, int month, int day, int hour, int minute, int second, int nanos) {
+        final int dayOfEpoch = TimeMillis.dayOfEpoch(year, month, day);
+        long timestamp =
+                dayOfEpoch * NANOS_IN_DAY +
+                hour * NANOS_IN_HOUR +
+                minute * NANOS_IN_MINUTE +
+                second * NANOS +
+                nanos;
+        assert dayOfEpoch(timestamp) == dayOfEpoch: "outside the range of epoch nanos";
+        return timestamp;
+    }
+
+    public static long of(int year, int month, int day, int hour, int minute, int second) {
+        return of(year, month, day, hour, minute, second, 0);
+    }
+
+    public static long of(int year, int month, int day) {
+        return of(year, month, day, 0, 0, 0, 0);
+    }
+
+    public static long ofMillis(long timestamp) {
+        return timestamp * NANOS_IN_MILLI;
+    }
+
+    // Throws ArithmeticException outside the range of a long of nanos, as Instant.toEpochMilli does for millis
+    public static long ofInstant(Instant instant) {
+        final long seconds = instant.getEpochSecond();
+        if (seconds < 0 && instant.getNano() > 0) {
+            // a second on, so the earliest instants don't overflow before the nanos are added back
+            return Math.addExact(Math.multiplyExact(seconds + 1, NANOS), instant.getNano() - NANOS);
+        }
+        return Math.addExact(Math.multiplyExact(seconds, NANOS), instant.getNano());
+    }
+
+    // Rounded down to the millisecond
+    public static long toMillis(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MILLI);
+    }
+
+    // Rounded down to the microsecond
+    public static long toMicros(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MICRO);
+    }
+
+    public static Instant toInstant(long timestamp) {
+        return Instant.ofEpochSecond(TimeMillis.floorDiv(timestamp, NANOS), getNanoseconds(timestamp));
+    }
+
+    public static long truncateToMonths(long timestamp) {
+        int dayOfEpoch = dayOfEpoch(timestamp);
+        return (long) (dayOfEpoch - (TimeMillis.dayToMonthAndDays(dayOfEpoch) & 31)) * NANOS_IN_DAY;
+    }
+
+    public static long truncateToDays(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_DAY) * NANOS_IN_DAY;
+    }
+
+    public static long truncateToHours(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_HOUR) * NANOS_IN_HOUR;
+    }
+
+    public static long truncateToHours(long timestamp, int numOfHours) {
+        assert 24 / numOfHours * numOfHours == 24: "should not truncate to unequal number of hours";
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_HOUR * numOfHours) * NANOS_IN_HOUR * numOfHours;
+    }
+
+    public static long truncateToMinutes(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MINUTE) * NANOS_IN_MINUTE;
+    }
+
+    public static long truncateToMinutes(long timestamp, int numOfMinutes) {
+        assert 60 / numOfMinutes * numOfMinutes == 60: "should not truncate to unequal number of minutes";
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MINUTE * numOfMinutes) * NANOS_IN_MINUTE * numOfMinutes;
+    }
+
+    public static long truncateToSeconds(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS) * NANOS;
+    }
+
+    public static long truncateToMillis(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MILLI) * NANOS_IN_MILLI;
+    }
+
+    public static long truncateToMicros(long timestamp) {
+        return TimeMillis.floorDiv(timestamp, NANOS_IN_MICRO) * NANOS_IN_MICRO;
+    }
+
+    public static int dayOfEpoch(long timestamp) {
+        return (int) TimeMillis.floorDiv(timestamp, NANOS_IN_DAY);
+    }
+
+    // 1 to 365 (or 366 in a leap year)
+    public static int dayOfYear(long timestamp) {
+        return (TimeMillis.toYearAndDays(dayOfEpoch(timestamp)) & 511) + 1;
+    }
+
+    // 1 to 7 (Monday to Sunday) following the ISO-8601 standard
+    public static int dayOfWeek(long timestamp) {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(dayOfEpoch(timestamp) + 3, 7) + 1;
+    }
+
+    // 1 to 31
+    public static int dayOfMonth(long timestamp) {
+        return 1 + (TimeMillis.dayToMonthAndDays(dayOfEpoch(timestamp)) & 31);
+    }
+
+    public static int getYear(long timestamp) {
+        return TimeMillis.toYearAndDays(dayOfEpoch(timestamp)) >> 9;
+    }
+
+    // 1 to 12
+    public static int getMonth(long timestamp) {
+        return 1 + ((TimeMillis.dayToMonthAndDays(dayOfEpoch(timestamp)) >> 5) & 15);
+    }
+
+    // 0 to 23
+    public static int getHour(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, NANOS_IN_DAY) / NANOS_IN_HOUR);
+    }
+
+    // 0 to 59
+    public static int getMinute(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, NANOS_IN_HOUR) / NANOS_IN_MINUTE);
+    }
+
+    // 0 to 59
+    public static int getSecond(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, NANOS_IN_MINUTE) / NANOS);
+    }
+
+    // 0 to 999
+    public static int getMilliseconds(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, NANOS) / NANOS_IN_MILLI);
+    }
+
+    // 0 to 999_999
+    public static int getMicroseconds(long timestamp) {
+        return (int) (TimeMillis.floorMod(timestamp, NANOS) / NANOS_IN_MICRO);
+    }
+
+    // 0 to 999_999_999
+    public static int getNanoseconds(long timestamp) {
+        return (int) TimeMillis.floorMod(timestamp, NANOS);
+    }
+
+    // Uniformly distributed over the whole supported range, so about a half are before 1970
+    public static long nextRandomTimestamp(Random random) {
+        return random.nextLong();
+    }
+
+    // Uniformly distributed from begin (inclusive) to end (exclusive)
+    public static long nextRandomTimestamp(Random random, long begin, long end) {
+        return TimeMillis.nextRandomTimestamp(random, begin, end);
+    }
+
+    private static final long
+            NANOS_IN_MICRO = 1000,
+            NANOS_IN_MILLI = 1000_000,
+            NANOS = 1000_000_000,
+            NANOS_IN_MINUTE = 60 * NANOS,
+            NANOS_IN_HOUR = NANOS_IN_MINUTE * 60,
+            NANOS_IN_DAY = NANOS_IN_HOUR * 24;
+    // 1677-09-21T00:12:43.145224192Z to 2262-04-11T23:47:16.854775807Z
+    static final long
+            MIN_TIMESTAMP = Long.MIN_VALUE,
+            MAX_TIMESTAMP = Long.MAX_VALUE;
+}
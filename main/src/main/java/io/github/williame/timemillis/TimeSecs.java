@@ -1,102 +1,277 @@
 package io.github.williame.timemillis;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 
 public final class TimeSecs {
 
     private TimeSecs() {}
 
-    public static StringBuilder toDateTime(int secs, int millis, StringBuilder out) {
+    public static StringBuilder toDateTime(long secs, int millis, StringBuilder out) {
         return toDateTime(secs, millis, ' ', out);
     }
 
+    // Instants outside 0000 to 9999 are written by Instant.toString, truncated to millis, rather than wrapped
     public static String toIsoString(Instant instant) {
+        if (!inRange(instant.getEpochSecond())) {
+            return truncateToMillis(instant).toString();
+        }
         char[] chars = new char[24];
-        int length = doToDateTime(chars, (int) instant.getEpochSecond(), TimeMillis.getMilliseconds(instant), 'T');
+        int length = doToDateTime(chars, 0, instant.getEpochSecond(), TimeMillis.getMilliseconds(instant), 'T');
         chars[length++] = 'Z';
         return new String(chars, 0, length);
     }
 
     public static StringBuilder toIsoString(Instant instant, StringBuilder out) {
-        char[] chars = new char[24];
-        int length = doToDateTime(chars, (int) instant.getEpochSecond(), TimeMillis.getMilliseconds(instant), 'T');
+        if (!inRange(instant.getEpochSecond())) {
+            return out.append(truncateToMillis(instant));
+        }
+        return toIsoDateTime(instant.getEpochSecond(), TimeMillis.getMilliseconds(instant), out);
+    }
+
+    // Whether the seconds are within 0000 to 9999, so can be written here rather than by Instant.toString
+    static boolean inRange(long secs) {
+        return secs >= MIN_SECS && secs <= MAX_SECS;
+    }
+
+    // Only four digit years are written, so anything else is refused rather than indexing outside the digit tables
+    static void checkFormatRange(long secs) {
+        if (!inRange(secs)) {
+            throw new IllegalArgumentException("can only format 0000-01-01 to 9999-12-31, not " + secs + " secs");
+        }
+    }
+
+    public static StringBuilder toIsoDateTime(long secs, int millis, StringBuilder out) {
+        final char[] chars = SCRATCH.get();
+        int length = doToDateTime(chars, 0, secs, millis, 'T');
         chars[length++] = 'Z';
         return out.append(chars, 0, length);
     }
 
-    public static StringBuilder toIsoDateTime(int secs, int millis, StringBuilder out) {
-        return toDateTime(secs, millis, 'T', out).append('Z');
+    static StringBuilder toDateTime(long secs, int millis, char sep, StringBuilder out) {
+        final char[] chars = SCRATCH.get();
+        return out.append(chars, 0, doToDateTime(chars, 0, secs, millis, sep));
     }
 
-    private static StringBuilder toDateTime(int secs, int millis, char sep, StringBuilder out) {
-        char[] chars = new char[24];
-        return out.append(chars, 0, doToDateTime(chars, secs, millis, sep));
+    // Each doTo function writes at ofs and returns the offset just past what it wrote.  The digits are only
+    // emitted into arrays; StringBuilders and ByteBuffers are written from this thread's scratch char[]
+
+    static int doToDateTime(char[] chars, int ofs, long secs, int millis, char sep) {
+        checkFormatRange(secs);
+        final int day = dayOfEpoch(secs);
+        doToYYYYmmdd(chars, ofs, TimeMillis.toYearAndDays(day));
+        chars[ofs + 10] = sep;
+        doToHHMMSS(chars, ofs + 11, (int) (secs - (long) day * SECS_IN_DAY));
+        if (millis > 0) {
+            chars[ofs + 19] = '.';
+            emit3(chars, ofs + 20, millis);
+            return ofs + 23;
+        }
+        return ofs + 19;
     }
 
-    static int doToDateTime(char[] chars, int secs, int millis, char sep) {
-        doToYYYYmmdd(chars, TimeMillis.toYearAndDays(dayOfEpoch(secs)));
-        chars[10] = sep;
-        doToHHMMSS(chars, 11, secs);
+    static int doToDateTime(byte[] bytes, int ofs, long secs, int millis, char sep) {
+        checkFormatRange(secs);
+        final int day = dayOfEpoch(secs);
+        doToYYYYmmdd(bytes, ofs, TimeMillis.toYearAndDays(day));
+        bytes[ofs + 10] = (byte) sep;
+        doToHHMMSS(bytes, ofs + 11, (int) (secs - (long) day * SECS_IN_DAY));
         if (millis > 0) {
-            chars[19] = '.';
-            emit(chars, millis, 20, 23);
-            return 23;
+            bytes[ofs + 19] = '.';
+            emit3(bytes, ofs + 20, millis);
+            return ofs + 23;
         }
-        return 19;
+        return ofs + 19;
+    }
+
+    // Absolute puts, for direct buffers that have no backing array
+    static int doToDateTime(ByteBuffer buf, int ofs, long secs, int millis, char sep) {
+        final char[] chars = SCRATCH.get();
+        return put(buf, ofs, chars, doToDateTime(chars, 0, secs, millis, sep));
     }
 
-    public static StringBuilder toDate(int secs, StringBuilder out) {
-        char[] chars = new char[10];
-        doToYYYYmmdd(chars, TimeMillis.toYearAndDays(dayOfEpoch(secs)));
-        return out.append(chars);
+    // As doToDateTime but with the fraction given in nanos, written as Instant.toString does: as 3, 6 or 9 digits,
+    // whichever is the fewest that are exact, and not at all when it is 0
+    static int doToDateTimeNanos(char[] chars, int ofs, long secs, int nanos, char sep) {
+        ofs = doToDateTime(chars, ofs, secs, 0, sep);
+        if (nanos > 0) {
+            chars[ofs++] = '.';
+            final int millis = nanos / 1000_000, micros = nanos / 1000 - millis * 1000, rest = nanos % 1000;
+            emit3(chars, ofs, millis);
+            ofs += 3;
+            if ((micros | rest) != 0) {
+                emit3(chars, ofs, micros);
+                ofs += 3;
+                if (rest != 0) {
+                    emit3(chars, ofs, rest);
+                    ofs += 3;
+                }
+            }
+        }
+        return ofs;
+    }
+
+    static int doToDateTimeNanos(byte[] bytes, int ofs, long secs, int nanos, char sep) {
+        ofs = doToDateTime(bytes, ofs, secs, 0, sep);
+        if (nanos > 0) {
+            bytes[ofs++] = '.';
+            final int millis = nanos / 1000_000, micros = nanos / 1000 - millis * 1000, rest = nanos % 1000;
+            emit3(bytes, ofs, millis);
+            ofs += 3;
+            if ((micros | rest) != 0) {
+                emit3(bytes, ofs, micros);
+                ofs += 3;
+                if (rest != 0) {
+                    emit3(bytes, ofs, rest);
+                    ofs += 3;
+                }
+            }
+        }
+        return ofs;
+    }
+
+    static int doToDateTimeNanos(ByteBuffer buf, int ofs, long secs, int nanos, char sep) {
+        final char[] chars = SCRATCH.get();
+        return put(buf, ofs, chars, doToDateTimeNanos(chars, 0, secs, nanos, sep));
+    }
+
+    static StringBuilder toIsoDateTimeNanos(long secs, int nanos, StringBuilder out) {
+        final char[] chars = SCRATCH.get();
+        int length = doToDateTimeNanos(chars, 0, secs, nanos, 'T');
+        chars[length++] = 'Z';
+        return out.append(chars, 0, length);
     }
 
-    public static StringBuilder toTime(int secs, StringBuilder out) {
+    public static StringBuilder toDate(long secs, StringBuilder out) {
+        checkFormatRange(secs);
+        final char[] chars = SCRATCH.get();
+        doToYYYYmmdd(chars, 0, TimeMillis.toYearAndDays(dayOfEpoch(secs)));
+        return out.append(chars, 0, 10);
+    }
+
+    public static StringBuilder toTime(long secs, StringBuilder out) {
         return toTime(secs, 0, out);
     }
 
-    public static StringBuilder toTime(int secs, int millis, StringBuilder out) {
-        char[] chars = new char[12];
-        doToHHMMSS(chars, 0, secs);
+    public static StringBuilder toTime(long secs, int millis, StringBuilder out) {
+        final char[] chars = SCRATCH.get();
+        doToHHMMSS(chars, 0, (int) (secs - (long) dayOfEpoch(secs) * SECS_IN_DAY));
         if (millis > 0) {
             chars[8] = '.';
-            emit(chars, millis, 9, 12);
+            emit3(chars, 9, millis);
         }
-        return out.append(chars, 0, millis > 0 ? 12 : 8);
+        return out.append(chars, 0, millis > 0? 12: 8);
     }
 
-    private static void emit(char[] chars, long num, int start, int stop) {
-        for (int i = stop - 1; i >= start; i--) {
-            long nextNum = num / 10;
-            chars[i] = (char)('0' + (num - nextNum * 10));
-            num = nextNum;
+    // The ASCII chars[0 .. length) at buf[ofs], returning the offset just past them
+    private static int put(ByteBuffer buf, int ofs, char[] chars, int length) {
+        for (int i = 0; i < length; i++) {
+            buf.put(ofs + i, (byte) chars[i]);
         }
+        return ofs + length;
+    }
+
+    // num is 0 to 99; the tens and units chars are looked up as a pair rather than divided out
+    static void emit2(char[] chars, int ofs, int num) {
+        chars[ofs] = DIGIT_PAIRS[num << 1];
+        chars[ofs + 1] = DIGIT_PAIRS[(num << 1) + 1];
     }
 
-    private static void doToYYYYmmdd(char[] chars, int yearAndDays) {
+    static void emit3(char[] chars, int ofs, int num) {
+        final int hundreds = num / 100;
+        chars[ofs] = (char) ('0' + hundreds);
+        emit2(chars, ofs + 1, num - hundreds * 100);
+    }
+
+    static void emit4(char[] chars, int ofs, int num) {
+        final int hundreds = num / 100;
+        emit2(chars, ofs, hundreds);
+        emit2(chars, ofs + 2, num - hundreds * 100);
+    }
+
+    static void emit2(byte[] bytes, int ofs, int num) {
+        bytes[ofs] = (byte) DIGIT_PAIRS[num << 1];
+        bytes[ofs + 1] = (byte) DIGIT_PAIRS[(num << 1) + 1];
+    }
+
+    static void emit3(byte[] bytes, int ofs, int num) {
+        final int hundreds = num / 100;
+        bytes[ofs] = (byte) ('0' + hundreds);
+        emit2(bytes, ofs + 1, num - hundreds * 100);
+    }
+
+    static void emit4(byte[] bytes, int ofs, int num) {
+        final int hundreds = num / 100;
+        emit2(bytes, ofs, hundreds);
+        emit2(bytes, ofs + 2, num - hundreds * 100);
+    }
+
+    static void doToYYYYmmdd(char[] chars, int ofs, int yearAndDays) {
+        int monthAndDays = TimeMillis.toMonthAndDays(yearAndDays);
+        chars[ofs + 4] = chars[ofs + 7] = '-';
+        emit4(chars, ofs, yearAndDays >> 9);
+        emit2(chars, ofs + 5, 1 + (monthAndDays >> 5));
+        emit2(chars, ofs + 8, 1 + (monthAndDays & 31));
+    }
+
+    static void doToYYYYmmdd(byte[] bytes, int ofs, int yearAndDays) {
         int monthAndDays = TimeMillis.toMonthAndDays(yearAndDays);
-        chars[4] = chars[7] = '-';
-        emit(chars, (yearAndDays >> 9), 0, 4);
-        emit(chars, 1 + (monthAndDays >> 5), 5, 7);
-        emit(chars, 1 + (monthAndDays & 31), 8, 10);
+        bytes[ofs + 4] = bytes[ofs + 7] = '-';
+        emit4(bytes, ofs, yearAndDays >> 9);
+        emit2(bytes, ofs + 5, 1 + (monthAndDays >> 5));
+        emit2(bytes, ofs + 8, 1 + (monthAndDays & 31));
     }
 
-    private static void doToHHMMSS(char[] chars, int ofs, int secs) {
+    static void doToHHMMSS(char[] chars, int ofs, int secsOfDay) {
         chars[ofs + 2] = chars[ofs + 5] = ':';
-        final int seconds = secs % 60;
-        final int minutes = (secs /= 60) % 60;
-        final int hours = (secs / 60) % 24;
-        emit(chars, hours, ofs, ofs + 2);
-        emit(chars, minutes, ofs + 3, ofs + 5);
-        emit(chars, seconds, ofs + 6, ofs + 8);
+        final int minutesOfDay = secsOfDay / 60;
+        final int seconds = secsOfDay - minutesOfDay * 60;
+        final int hours = minutesOfDay / 60;
+        final int minutes = minutesOfDay - hours * 60;
+        emit2(chars, ofs, hours);
+        emit2(chars, ofs + 3, minutes);
+        emit2(chars, ofs + 6, seconds);
+    }
+
+    static void doToHHMMSS(byte[] bytes, int ofs, int secsOfDay) {
+        bytes[ofs + 2] = bytes[ofs + 5] = ':';
+        final int minutesOfDay = secsOfDay / 60;
+        final int seconds = secsOfDay - minutesOfDay * 60;
+        final int hours = minutesOfDay / 60;
+        final int minutes = minutesOfDay - hours * 60;
+        emit2(bytes, ofs, hours);
+        emit2(bytes, ofs + 3, minutes);
+        emit2(bytes, ofs + 6, seconds);
     }
 
-    private static int dayOfEpoch(int secs) {
-        return secs / SECS_IN_DAY;
+    private static Instant truncateToMillis(Instant instant) {
+        return Instant.ofEpochSecond(instant.getEpochSecond(), TimeMillis.getMilliseconds(instant) * 1000_000L);
+    }
+
+    // Only seconds within 0000 to 9999 come here, so the day fits
+    private static int dayOfEpoch(long secs) {
+        return (int) TimeMillis.floorDiv(secs, SECS_IN_DAY);
     }
 
     private static final int
             SECS_IN_MINUTE = 60,
             SECS_IN_HOUR = SECS_IN_MINUTE * 60,
             SECS_IN_DAY = SECS_IN_HOUR * 24;
+    private static final long
+            MIN_SECS = TimeMillis.floorDiv(TimeMillis.MIN_TIMESTAMP, 1000),
+            MAX_SECS = TimeMillis.floorDiv(TimeMillis.MAX_TIMESTAMP, 1000);
+
+    /**
+     * "00" to "99" laid out as consecutive pairs of chars
+     */
+    private static final char[] DIGIT_PAIRS = new char[200];
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i << 1] = (char) ('0' + i / 10);
+            DIGIT_PAIRS[(i << 1) + 1] = (char) ('0' + i % 10);
+        }
+    }
+
+    // Long enough for yyyy-MM-ddTHH:mm:ss.nnnnnnnnnZ
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[32]);
 }
@@ -0,0 +1,285 @@
+package io.github.williame.timemillis;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Packs columns of timestamps, such as the events of a log, into a few bytes each instead of 8.
+ * Each block of 128 stores its first timestamp and then the differences between neighbours, or
+ * the differences between those differences, whichever is smaller, as zig-zag varints: sorted
+ * timestamps a few millis apart take 1 byte each, and those at a regular interval take 1 byte
+ * however far apart they are.  Unsorted timestamps still round-trip, only less compactly.
+ * <p>
+ * The encoding starts with the count and the offset of every block, so decoding can start at any
+ * index by skipping to its block.  forEach decodes straight into a consumer, e.g. to count
+ * timestamps by TimeMillis.getHour without a long[] in between.
+ * <p>
+ * Encodings can also be written to and read from ByteBuffers, e.g. direct or memory-mapped ones,
+ * at the buffer's position; they are copied through a small array a block at a time.
+ */
+public final class TimestampCodec {
+
+    private TimestampCodec() {}
+
+    public static byte[] encode(long[] in) {
+        return encode(in, 0, in.length);
+    }
+
+    public static byte[] encode(long[] in, int inOffset, int count) {
+        TimeMillis.checkBulkRange(in.length, inOffset, Integer.MAX_VALUE, 0, count);
+        final int[] blocks = plan(in, inOffset, count);
+        final byte[] out = new byte[length(count, blocks)];
+        final int blockOffsets = writeVarint(out, 0, count);
+        int pos = blockOffsets + 4 * blocks.length;
+        for (int block = 0; block < blocks.length; block++) {
+            writeInt(out, blockOffsets + 4 * block, pos);
+            final int begin = inOffset + block * BLOCK;
+            pos = encodeBlock(in, begin, Math.min(begin + BLOCK, inOffset + count), blocks[block] & 1, out, pos);
+        }
+        return out;
+    }
+
+    // Writes the encoding at the buffer's position and advances it past
+    public static void encode(long[] in, int inOffset, int count, ByteBuffer out) {
+        TimeMillis.checkBulkRange(in.length, inOffset, Integer.MAX_VALUE, 0, count);
+        final int[] blocks = plan(in, inOffset, count);
+        final int start = out.position(), length = length(count, blocks);
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        final byte[] buf = new byte[MAX_BLOCK_LENGTH];
+        final int blockOffsets = start + put(out, start, buf, writeVarint(buf, 0, count));
+        int pos = blockOffsets + 4 * blocks.length;
+        for (int block = 0; block < blocks.length; block++) {
+            writeInt(buf, 0, pos - start);
+            put(out, blockOffsets + 4 * block, buf, 4);
+            final int begin = inOffset + block * BLOCK;
+            pos += put(out, pos, buf, encodeBlock(in, begin, Math.min(begin + BLOCK, inOffset + count), blocks[block] & 1, buf, 0));
+        }
+        ((Buffer) out).position(start + length); // Buffer's signature so it still links on Java 8
+    }
+
+    // The number of bytes encode writes, e.g. to size a buffer; throws IllegalArgumentException if over 2 GB
+    public static int encodedLength(long[] in, int inOffset, int count) {
+        TimeMillis.checkBulkRange(in.length, inOffset, Integer.MAX_VALUE, 0, count);
+        return length(count, plan(in, inOffset, count));
+    }
+
+    // The length and mode of each block as length << 1 | mode, from the varints both ways, to pick the smaller
+    private static int[] plan(long[] in, int inOffset, int count) {
+        final int[] blocks = new int[(count + BLOCK - 1) / BLOCK];
+        for (int block = 0; block < blocks.length; block++) {
+            final int begin = inOffset + block * BLOCK, end = Math.min(begin + BLOCK, inOffset + count);
+            int deltaBytes = 0, deltaOfDeltaBytes = 0;
+            long previousDelta = 0;
+            for (int i = begin + 1; i < end; i++) {
+                final long delta = in[i] - in[i - 1];
+                deltaBytes += varintLength(zigZag(delta));
+                deltaOfDeltaBytes += varintLength(zigZag(delta - previousDelta));
+                previousDelta = delta;
+            }
+            final int length = 1 + varintLength(zigZag(in[begin])) + Math.min(deltaBytes, deltaOfDeltaBytes);
+            blocks[block] = length << 1 | (deltaOfDeltaBytes < deltaBytes? DELTA_OF_DELTA: DELTA);
+        }
+        return blocks;
+    }
+
+    // The count, the block offsets and the blocks
+    static int length(int count, int[] blocks) {
+        long length = varintLength(count) + 4L * blocks.length;
+        for (int block: blocks) {
+            length += block >>> 1;
+        }
+        if (length > MAX_LENGTH) {
+            throw new IllegalArgumentException(count + " timestamps encode to " + length + " bytes, more than an array holds");
+        }
+        return (int) length;
+    }
+
+    private static int encodeBlock(long[] in, int begin, int end, int mode, byte[] out, int pos) {
+        out[pos++] = (byte) mode;
+        pos = writeVarint(out, pos, zigZag(in[begin]));
+        long previousDelta = 0;
+        for (int i = begin + 1; i < end; i++) {
+            final long delta = in[i] - in[i - 1];
+            pos = writeVarint(out, pos, zigZag(mode == DELTA? delta: delta - previousDelta));
+            previousDelta = delta;
+        }
+        return pos;
+    }
+
+    // Copies buf[0 .. length) to out at pos and returns length
+    private static int put(ByteBuffer out, int pos, byte[] buf, int length) {
+        for (int i = 0; i < length; i++) {
+            out.put(pos + i, buf[i]);
+        }
+        return length;
+    }
+
+    // The number of timestamps encoded
+    public static int count(byte[] encoded) {
+        return (int) readVarint(encoded, 0);
+    }
+
+    public static long[] decode(byte[] encoded) {
+        long[] out = new long[count(encoded)];
+        decode(encoded, 0, out, 0, out.length);
+        return out;
+    }
+
+    // Decodes the timestamps from index on into out[outOffset ..], starting at the block holding index
+    public static void decode(byte[] encoded, int index, long[] out, int outOffset, int count) {
+        final int total = count(encoded);
+        TimeMillis.checkBulkRange(total, index, out.length, outOffset, count);
+        final int blockOffsets = varintLength(total);
+        for (int block = index / BLOCK; count > 0; block++) {
+            final int skip = index - block * BLOCK, n = Math.min(BLOCK, total - block * BLOCK);
+            final int decoded = Math.min(count, n - skip);
+            decodeBlock(encoded, readInt(encoded, blockOffsets + 4 * block), n, skip, out, outOffset, decoded);
+            index += decoded;
+            outOffset += decoded;
+            count -= decoded;
+        }
+    }
+
+    // The number of timestamps encoded at the buffer's position
+    public static int count(ByteBuffer encoded) {
+        return (int) readVarint(encoded, encoded.position());
+    }
+
+    // As decode(byte[], ...) for an encoding at the buffer's position, which is left alone
+    public static void decode(ByteBuffer encoded, int index, long[] out, int outOffset, int count) {
+        final int start = encoded.position(), total = count(encoded);
+        TimeMillis.checkBulkRange(total, index, out.length, outOffset, count);
+        final int blockOffsets = start + varintLength(total);
+        final byte[] buf = new byte[MAX_BLOCK_LENGTH];
+        for (int block = index / BLOCK; count > 0; block++) {
+            final int skip = index - block * BLOCK, n = Math.min(BLOCK, total - block * BLOCK);
+            final int decoded = Math.min(count, n - skip);
+            // up to the next block, or as much as the last may take short of the buffer's end
+            final int pos = start + readInt(encoded, blockOffsets + 4 * block), length = total - block * BLOCK > BLOCK?
+                    start + readInt(encoded, blockOffsets + 4 * (block + 1)) - pos: Math.min(MAX_BLOCK_LENGTH, encoded.limit() - pos);
+            for (int i = 0; i < length; i++) {
+                buf[i] = encoded.get(pos + i);
+            }
+            decodeBlock(buf, 0, n, skip, out, outOffset, decoded);
+            index += decoded;
+            outOffset += decoded;
+            count -= decoded;
+        }
+    }
+
+    public static long get(byte[] encoded, int index) {
+        long[] out = new long[1];
+        decode(encoded, index, out, 0, 1);
+        return out[0];
+    }
+
+    // Passes every timestamp to the consumer in order, decoding a block at a time
+    public static void forEach(byte[] encoded, LongConsumer consumer) {
+        final int total = count(encoded), blockOffsets = varintLength(total);
+        final long[] buf = new long[BLOCK];
+        for (int block = 0; block * BLOCK < total; block++) {
+            final int n = Math.min(BLOCK, total - block * BLOCK);
+            decodeBlock(encoded, readInt(encoded, blockOffsets + 4 * block), n, 0, buf, 0, n);
+            for (int i = 0; i < n; i++) {
+                consumer.accept(buf[i]);
+            }
+        }
+    }
+
+    // Decodes the block of n timestamps at pos, dropping the first skip and keeping the count after them
+    private static void decodeBlock(byte[] encoded, int pos, int n, int skip, long[] out, int outOffset, int count) {
+        final int mode = encoded[pos++];
+        long value = 0, delta = 0;
+        final int end = skip + count;
+        for (int i = 0; i < end; i++) {
+            // a varint, with a fast path for the 1 byte that most are
+            long zigZag = encoded[pos++];
+            if (zigZag < 0) {
+                zigZag &= 0x7f;
+                for (int shift = 7; ; shift += 7) {
+                    final byte b = encoded[pos++];
+                    zigZag |= (long) (b & 0x7f) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+            }
+            final long decoded = (zigZag >>> 1) ^ -(zigZag & 1);
+            if (i == 0) {
+                value = decoded;
+            } else {
+                delta = mode == DELTA? decoded: delta + decoded;
+                value += delta;
+            }
+            if (i >= skip) {
+                out[outOffset + i - skip] = value;
+            }
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int varintLength(long value) {
+        // 7 bits a byte, and at least one byte
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    private static int writeVarint(byte[] out, int pos, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out[pos++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarint(byte[] in, int pos) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = in[pos++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long readVarint(ByteBuffer in, int pos) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = in.get(pos++);
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Little-endian
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) value;
+        out[pos + 1] = (byte) (value >> 8);
+        out[pos + 2] = (byte) (value >> 16);
+        out[pos + 3] = (byte) (value >> 24);
+    }
+
+    private static int readInt(byte[] in, int pos) {
+        return (in[pos] & 0xff) | (in[pos + 1] & 0xff) << 8 | (in[pos + 2] & 0xff) << 16 | in[pos + 3] << 24;
+    }
+
+    private static int readInt(ByteBuffer in, int pos) {
+        return (in.get(pos) & 0xff) | (in.get(pos + 1) & 0xff) << 8 | (in.get(pos + 2) & 0xff) << 16 | in.get(pos + 3) << 24;
+    }
+
+    static final int BLOCK = 128;
+    private static final int DELTA = 0, DELTA_OF_DELTA = 1;
+    // the mode, then at most a 10 byte varint per timestamp
+    private static final int MAX_BLOCK_LENGTH = 1 + 10 * BLOCK;
+    static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+}
@@ -0,0 +1,264 @@
+package io.github.williame.timemillis;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted multiset of timestamps kept in blocks of primitive longs, for windows of events that
+ * would otherwise be a TreeMap of Instants at some 40 bytes and several objects an entry.  Adding
+ * in order appends to the last block; adding out of order shifts within a block and splits it when
+ * full, so it stays cheap while events arrive mostly in order.
+ * <p>
+ * Lookups binary search the first timestamp of each block and then the block, both without
+ * branches on the data.  Counting by hour, day or month looks up each boundary once rather than
+ * visiting every timestamp.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class TimestampIndex {
+
+    private long[][] blocks = new long[16][];
+    // the first timestamp of each block, to search without touching the blocks
+    private long[] firsts = new long[16];
+    // the index of the first timestamp of each block, and the size after the last
+    private int[] starts = new int[17];
+    private int blockCount;
+
+    public int size() {
+        return starts[blockCount];
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void add(long timestamp) {
+        if (blockCount == 0 || timestamp >= last()) {
+            append(timestamp);
+        } else {
+            insert(timestamp);
+        }
+    }
+
+    public void addAll(long[] timestamps) {
+        for (long timestamp: timestamps) {
+            add(timestamp);
+        }
+    }
+
+    private void append(long timestamp) {
+        if (blockCount == 0 || blockSize(blockCount - 1) == BLOCK) {
+            addBlock(blockCount);
+            firsts[blockCount - 1] = timestamp;
+        }
+        blocks[blockCount - 1][blockSize(blockCount - 1)] = timestamp;
+        starts[blockCount]++;
+    }
+
+    private void insert(long timestamp) {
+        // the last block starting at or before the timestamp, or the first
+        int b = Math.max(0, lowerBound(firsts, blockCount, timestamp + 1) - 1);
+        if (blockSize(b) == BLOCK) {
+            // split, moving the upper half to a new block after it
+            addBlock(b + 1);
+            System.arraycopy(blocks[b], BLOCK / 2, blocks[b + 1], 0, BLOCK / 2);
+            firsts[b + 1] = blocks[b + 1][0];
+            starts[b + 1] = starts[b] + BLOCK / 2;
+            if (timestamp >= firsts[b + 1]) {
+                b++;
+            }
+        }
+        final long[] block = blocks[b];
+        final int size = blockSize(b);
+        // after any equal timestamps
+        final int pos = lowerBound(block, size, timestamp + 1);
+        System.arraycopy(block, pos, block, pos + 1, size - pos);
+        block[pos] = timestamp;
+        firsts[b] = block[0];
+        for (int k = b + 1; k <= blockCount; k++) {
+            starts[k]++;
+        }
+    }
+
+    // Adds an empty block at b
+    private void addBlock(int b) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            firsts = Arrays.copyOf(firsts, blockCount * 2);
+            starts = Arrays.copyOf(starts, blockCount * 2 + 1);
+        }
+        System.arraycopy(blocks, b, blocks, b + 1, blockCount - b);
+        System.arraycopy(firsts, b, firsts, b + 1, blockCount - b);
+        System.arraycopy(starts, b, starts, b + 1, blockCount - b + 1);
+        blocks[b] = new long[BLOCK];
+        blockCount++;
+    }
+
+    // Removes the timestamps before the given one, e.g. as they fall out of a window; returns how many
+    public int removeBefore(long timestamp) {
+        final int removed = rank(timestamp);
+        if (removed == 0) {
+            return 0;
+        }
+        // the block holding the first timestamp kept, dropping all those before it
+        final int b = blockOf(Math.min(removed, size() - 1));
+        final int dropped = removed == size()? blockCount: b;
+        System.arraycopy(blocks, dropped, blocks, 0, blockCount - dropped);
+        System.arraycopy(firsts, dropped, firsts, 0, blockCount - dropped);
+        Arrays.fill(blocks, blockCount - dropped, blockCount, null);
+        blockCount -= dropped;
+        final int base = starts[dropped];
+        for (int k = 0; k <= blockCount; k++) {
+            starts[k] = starts[k + dropped] - base;
+        }
+        if (blockCount > 0 && removed > base) {
+            // and those at the start of what is now the first block
+            final int trimmed = removed - base, size = blockSize(0);
+            System.arraycopy(blocks[0], trimmed, blocks[0], 0, size - trimmed);
+            firsts[0] = blocks[0][0];
+            for (int k = 1; k <= blockCount; k++) {
+                starts[k] -= trimmed;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(blocks, null);
+        blockCount = 0;
+        starts[0] = 0;
+    }
+
+    // The index-th smallest timestamp
+    public long get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + size());
+        }
+        final int b = blockOf(index);
+        return blocks[b][index - starts[b]];
+    }
+
+    public long first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return firsts[0];
+    }
+
+    public long last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return blocks[blockCount - 1][blockSize(blockCount - 1) - 1];
+    }
+
+    // The number of timestamps before the given one, which is also the index of the first at or after it
+    public int rank(long timestamp) {
+        // the last block starting before the timestamp holds the first timestamp at or after it, or ends just before it
+        final int b = lowerBound(firsts, blockCount, timestamp) - 1;
+        return b < 0? 0: starts[b] + lowerBound(blocks[b], blockSize(b), timestamp);
+    }
+
+    // The number of timestamps from from (inclusive) to to (exclusive)
+    public int count(long from, long to) {
+        return to > from? rank(to) - rank(from): 0;
+    }
+
+    // The timestamps from from (inclusive) to to (exclusive), in order
+    public long[] range(long from, long to) {
+        final int begin = rank(from), end = Math.max(begin, rank(to));
+        return toArray(begin, end);
+    }
+
+    public long[] toArray() {
+        return toArray(0, size());
+    }
+
+    private long[] toArray(int begin, int end) {
+        final long[] out = new long[end - begin];
+        for (int b = begin < end? blockOf(begin): blockCount, i = begin; i < end; b++) {
+            final int from = i - starts[b], len = Math.min(blockSize(b) - from, end - i);
+            System.arraycopy(blocks[b], from, out, i - begin, len);
+            i += len;
+        }
+        return out;
+    }
+
+    // Sets counts[i] to the number of timestamps from boundaries[i] (inclusive) to boundaries[i + 1] (exclusive)
+    public void countBetween(long[] boundaries, int[] counts) {
+        if (counts.length < boundaries.length - 1) {
+            throw new IndexOutOfBoundsException("counts " + counts.length + " for " + boundaries.length + " boundaries");
+        }
+        int previous = boundaries.length > 0? rank(boundaries[0]): 0;
+        for (int i = 1; i < boundaries.length; i++) {
+            final int next = rank(boundaries[i]);
+            counts[i - 1] = next - previous;
+            previous = next;
+        }
+    }
+
+    // Sets counts[i] to the number of timestamps in the i-th hour from the start of from's hour
+    public void countByHours(long from, int[] counts) {
+        countByWidth(TimeMillis.truncateToHours(from), MILLIS_IN_HOUR, counts);
+    }
+
+    public void countByDays(long from, int[] counts) {
+        countByWidth(TimeMillis.truncateToDays(from), MILLIS_IN_DAY, counts);
+    }
+
+    public void countByMonths(long from, int[] counts) {
+        long boundary = TimeMillis.truncateToMonths(from);
+        int previous = rank(boundary);
+        for (int i = 0; i < counts.length; i++) {
+            boundary = TimeMillis.plusMonths(boundary, 1);
+            final int next = rank(boundary);
+            counts[i] = next - previous;
+            previous = next;
+        }
+    }
+
+    private void countByWidth(long boundary, long width, int[] counts) {
+        int previous = rank(boundary);
+        for (int i = 0; i < counts.length; i++) {
+            boundary += width;
+            final int next = rank(boundary);
+            counts[i] = next - previous;
+            previous = next;
+        }
+    }
+
+    private int blockSize(int b) {
+        return starts[b + 1] - starts[b];
+    }
+
+    // The block holding the index-th timestamp, the last whose start is at or before it
+    private int blockOf(int index) {
+        int base = 0;
+        for (int n = blockCount; n > 1; ) {
+            final int half = n >>> 1;
+            base = starts[base + half] <= index? base + half: base;
+            n -= half;
+        }
+        return base;
+    }
+
+    // The number of a[0 .. n) before the key; the conditional move rather than a branch keeps a mispredict from
+    // costing each halving
+    private static int lowerBound(long[] a, int n, long key) {
+        if (n == 0) {
+            return 0;
+        }
+        int base = 0;
+        while (n > 1) {
+            final int half = n >>> 1;
+            base = a[base + half] < key? base + half: base;
+            n -= half;
+        }
+        return base + (a[base] < key? 1: 0);
+    }
+
+    static final int BLOCK = 1024;
+    private static final long
+            MILLIS_IN_HOUR = 60 * 60 * 1000,
+            MILLIS_IN_DAY = MILLIS_IN_HOUR * 24;
+}
@@ -0,0 +1,397 @@
+package io.github.williame.timemillis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Pulls a timestamp out of every line of a log or CSV file, e.g. to find a time range or build an
+ * index.  The file is memory-mapped and each timestamp is parsed where it lies with tryParse's
+ * fast ISO path, so no String is made per line.  Lines are split on '\n' (a '\r' before it is
+ * dropped) and the timestamp is the field at the given column, counting from 0, between delimiters.
+ * Lines without a valid one, including empty lines, give TimeMillis.INVALID.
+ * <p>
+ * Fields are read as TimeMillis.parse reads them: any ISO-8601 that tryParse accepts, else leniently
+ * as yyyy?MM?dd?HH?mm?ss?SSS with any separators or none, so e.g. yyyyMMddHHmmssSSS and 2 digit
+ * fractions are found too.  Out of range fields give INVALID rather than a wrong timestamp, as
+ * logs have lines that only look like one.  {@link #strict()} reads only ISO-8601.
+ * <p>
+ * In files sorted by time, findRange finds the lines of a time range with a binary search that
+ * reads a few KB at each of O(log n) offsets, so it is as quick on a file of many GB as on a small
+ * one.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class TimestampScanner {
+
+    // Gets each line's timestamp, and where the line starts in the file
+    @FunctionalInterface
+    public interface TimestampConsumer {
+        void accept(long lineOffset, long timestamp);
+    }
+
+    private final int column;
+    private final byte delimiter;
+    private final boolean strict;
+
+    private TimestampScanner(int column, byte delimiter, boolean strict) {
+        this.column = column;
+        this.delimiter = delimiter;
+        this.strict = strict;
+    }
+
+    // e.g. ofColumn(2, ',') for the third field of a CSV file
+    public static TimestampScanner ofColumn(int column, char delimiter) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must not be negative: " + column);
+        }
+        if (delimiter > 127 || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("delimiter must be an ASCII char other than a line end: " + (int) delimiter);
+        }
+        return new TimestampScanner(column, (byte) delimiter, false);
+    }
+
+    // The leading timestamp of each line, up to the first space, as most logs write them
+    public static TimestampScanner ofLineStart() {
+        return ofColumn(0, ' ');
+    }
+
+    // As this scanner but reading fields only as tryParse does, so lenient layouts give INVALID
+    public TimestampScanner strict() {
+        return new TimestampScanner(column, delimiter, true);
+    }
+
+    // Returns the number of lines
+    public long scan(Path file, TimestampConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return scan(channel, 0, channel.size(), MAX_MAPPING, consumer);
+        }
+    }
+
+    // The timestamp of every line, in order
+    public long[] scan(Path file) throws IOException {
+        Timestamps timestamps = new Timestamps();
+        scan(file, timestamps);
+        return timestamps.toArray();
+    }
+
+    public long[] scanParallel(Path file) throws IOException {
+        return scanParallel(file, ForkJoinPool.commonPool());
+    }
+
+    // As scan, with the file split into parts of whole lines that the pool scans at the same time
+    public long[] scanParallel(Path file, ForkJoinPool pool) throws IOException {
+        return scanParallel(file, pool, PARALLEL_PART, MAX_MAPPING);
+    }
+
+    long[] scanParallel(Path file, ForkJoinPool pool, long partSize, int mappingSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            try {
+                return pool.invoke(new RecursiveTask<long[]>() {
+                    @Override
+                    protected long[] compute() {
+                        List<Part> parts = new ArrayList<>();
+                        for (long begin = 0; begin < size; begin += partSize) {
+                            parts.add(new Part(channel, begin, Math.min(size, begin + partSize), mappingSize));
+                        }
+                        ForkJoinTask.invokeAll(parts);
+                        long count = 0;
+                        for (Part part: parts) {
+                            count += part.timestamps.count;
+                        }
+                        if (count > MAX_TIMESTAMPS) {
+                            throw new IllegalStateException("more lines than fit a long[]: " + count);
+                        }
+                        long[] timestamps = new long[(int) count];
+                        int offset = 0;
+                        for (Part part: parts) {
+                            System.arraycopy(part.timestamps.values, 0, timestamps, offset, part.timestamps.count);
+                            offset += part.timestamps.count;
+                        }
+                        return timestamps;
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the pool may rethrow a copy of the part's exception, with the original as its cause
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) cause).getCause();
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns {begin, end}, the byte range of the lines from the first with a timestamp at or after from up to the
+     * first with one at or after to, for a file whose timestamps are in order.  Lines without a timestamp, e.g. of
+     * stack traces, go with the line before them.
+     */
+    public long[] findRange(Path file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Probe probe = new Probe(channel);
+            final long begin = lowerBound(probe, from);
+            return new long[]{begin, to > from? Math.max(begin, lowerBound(probe, to)): begin};
+        }
+    }
+
+    // The start of the first line with a timestamp at or after the given one, or the file's size if none is
+    private long lowerBound(Probe probe, long timestamp) throws IOException {
+        // lines before lo are before the timestamp, and hi is the start of a line at or after it or the end
+        long lo = 0, hi = probe.size;
+        while (lo < hi) {
+            long line = probe.lineStart(lo + (hi - lo) / 2);
+            if (line >= hi) {
+                // no line starts in the upper half, so look at the first one
+                line = lo;
+            }
+            final long probed = line;
+            // lines without a timestamp are ordered as the next line that has one
+            long found = TimeMillis.INVALID;
+            while (line < hi && (found = probe.timestamp(line)) == TimeMillis.INVALID) {
+                line = probe.next;
+            }
+            if (line >= hi || found >= timestamp) {
+                hi = probed;
+            } else {
+                lo = probe.next;
+            }
+        }
+        // lines without a timestamp at the bound go with the line before it
+        while (lo < probe.size && probe.timestamp(lo) == TimeMillis.INVALID) {
+            lo = probe.next;
+        }
+        return lo;
+    }
+
+    // Scans the lines that start from begin to end (exclusive); begin must be the start of a line
+    long scan(FileChannel channel, long begin, long end, int mappingSize, TimestampConsumer consumer) throws IOException {
+        final long size = channel.size();
+        long lines = 0, tail = LINE_TAIL;
+        while (begin < end) {
+            // the last line may run past end, so map a little beyond it, and more if that line is long
+            final long mapEnd = Math.min(size, begin + Math.min(end - begin + tail, mappingSize));
+            final MappedByteBuffer buf = map(channel, begin, mapEnd - begin);
+            final int limit = buf.limit(), lineStarts = (int) Math.min(end - begin, limit);
+            int pos = 0;
+            while (pos < lineStarts) {
+                int eol = indexOfNewline(buf, pos, limit);
+                if (eol == limit && mapEnd < size) {
+                    // the line goes past the mapping, so map again from its start
+                    break;
+                }
+                consumer.accept(begin + pos, parseField(buf, pos, eol));
+                lines++;
+                pos = eol + 1;
+            }
+            if (pos == 0) {
+                if (mapEnd - begin >= mappingSize) {
+                    throw new IOException("line at " + begin + " is longer than " + mappingSize + " bytes");
+                }
+                tail *= 2;
+            }
+            begin += pos;
+        }
+        return lines;
+    }
+
+    // The timestamp in the column of the line buf[pos .. eol)
+    private long parseField(ByteBuffer buf, int pos, int eol) {
+        if (eol > pos && buf.get(eol - 1) == '\r') {
+            eol--;
+        }
+        for (int i = 0; i < column; i++) {
+            pos = indexOf(buf, delimiter, pos, eol) + 1;
+            if (pos > eol) {
+                return TimeMillis.INVALID;
+            }
+        }
+        final int end = indexOf(buf, delimiter, pos, eol);
+        if (end - pos > MAX_FIELD) {
+            // too long to be ISO-8601, and parse reads no further than the millis
+            return strict? TimeMillis.INVALID: TimeMillis.parseFields(buf, pos, pos + MAX_FIELD);
+        }
+        final long parsed = TimeMillis.tryParse(buf, pos, end - pos);
+        return parsed != TimeMillis.INVALID || strict? parsed: TimeMillis.parseFields(buf, pos, end);
+    }
+
+    // The line end, or limit if the line has none yet
+    private static int indexOfNewline(ByteBuffer buf, int pos, int limit) {
+        return indexOf(buf, (byte) '\n', pos, limit);
+    }
+
+    // Looks at 8 bytes at a time, finding the first that matches with the has-zero-byte trick; the buffer
+    // must be little-endian, as map sets it, so the first byte in the buffer is the lowest in the word
+    private static int indexOf(ByteBuffer buf, byte b, int pos, int limit) {
+        final long pattern = (b & 0xffL) * LOW_BITS;
+        for (; pos + 8 <= limit; pos += 8) {
+            final long word = buf.getLong(pos) ^ pattern;
+            // a borrow can only mark bytes above the first zero byte, so the lowest mark is exact
+            final long zeros = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (zeros != 0) {
+                return pos + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+        }
+        while (pos < limit && buf.get(pos) != b) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long pos, long size) throws IOException {
+        final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return buf;
+    }
+
+    // The first line start at or after pos
+    private static long lineStart(FileChannel channel, long pos, int mappingSize) throws IOException {
+        final long size = channel.size();
+        if (pos == 0) {
+            return 0;
+        }
+        // a line starts at pos if the byte before it ends a line; most lines are short, so look a little way
+        // ahead first and further each time
+        pos--;
+        for (int window = Math.min(LINE_TAIL, mappingSize); pos < size; window = (int) Math.min(window * 2L, mappingSize)) {
+            final MappedByteBuffer buf = map(channel, pos, Math.min(size - pos, window));
+            final int eol = indexOfNewline(buf, 0, buf.limit());
+            if (eol < buf.limit()) {
+                return pos + eol + 1;
+            }
+            pos += buf.limit();
+        }
+        return size;
+    }
+
+    // Reads single lines at any offset with positional reads, as findRange needs only a few of them
+    private final class Probe {
+
+        final FileChannel channel;
+        final long size;
+        ByteBuffer buf = ByteBuffer.allocate(PROBE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        // the start of the line after the one last read by timestamp
+        long next;
+
+        Probe(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        // Fills buf from pos, or up to the end of the file; returns how many bytes it holds
+        private int read(long pos) throws IOException {
+            buf.clear();
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, pos + buf.position()) <= 0) {
+                    break;
+                }
+            }
+            return buf.position();
+        }
+
+        // The first line start at or after pos
+        long lineStart(long pos) throws IOException {
+            if (pos == 0) {
+                return 0;
+            }
+            // a line starts at pos if the byte before it ends a line
+            for (pos--; pos < size; ) {
+                final int len = read(pos), eol = indexOfNewline(buf, 0, len);
+                if (eol < len) {
+                    return pos + eol + 1;
+                }
+                pos += len;
+            }
+            return size;
+        }
+
+        // The timestamp of the line starting at pos
+        long timestamp(long pos) throws IOException {
+            for (;;) {
+                final int len = read(pos), eol = indexOfNewline(buf, 0, len);
+                if (eol < len || pos + len == size) {
+                    next = Math.min(size, pos + eol + 1);
+                    return parseField(buf, 0, eol);
+                }
+                // a long line, so read it all
+                buf = ByteBuffer.allocate(buf.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    private final class Part extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final FileChannel channel;
+        final long begin, end;
+        final int mappingSize;
+        final Timestamps timestamps = new Timestamps();
+
+        Part(FileChannel channel, long begin, long end, int mappingSize) {
+            this.channel = channel;
+            this.begin = begin;
+            this.end = end;
+            this.mappingSize = mappingSize;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                // the lines that start in this part; a line started in the part before belongs to it
+                scan(channel, lineStart(channel, begin, mappingSize), end, mappingSize, timestamps);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // A growable long[]
+    private static final class Timestamps implements TimestampConsumer {
+
+        long[] values = new long[1024];
+        int count;
+
+        @Override
+        public void accept(long lineOffset, long timestamp) {
+            if (count == values.length) {
+                if (count == MAX_TIMESTAMPS) {
+                    throw new IllegalStateException("more lines than fit a long[]");
+                }
+                values = Arrays.copyOf(values, (int) Math.min(MAX_TIMESTAMPS, count * 2L));
+            }
+            values[count++] = timestamp;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    private static final long LOW_BITS = 0x0101010101010101L, HIGH_BITS = 0x8080808080808080L;
+    static final int MAX_MAPPING = 1 << 30;
+    // mapped past a part's end for its last line, doubling while that line is longer
+    private static final int LINE_TAIL = 64 << 10;
+    // longer than any ISO-8601 timestamp, so lenient parsing need look no further
+    private static final int MAX_FIELD = 64;
+    // the most a long[] holds on common JVMs
+    private static final int MAX_TIMESTAMPS = Integer.MAX_VALUE - 8;
+    // a few lines of a typical log
+    private static final int PROBE_SIZE = 4096;
+    // small enough to keep every core busy, big enough that mapping it costs little
+    static final long PARALLEL_PART = 16 << 20;
+}
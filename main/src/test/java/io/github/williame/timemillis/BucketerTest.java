@@ -0,0 +1,110 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BucketerTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        for (int b = 0; b < 200; b++) {
+            // widths from a millisecond to centuries, some of them odd, with origins anywhere in the range
+            long width = b % 4 == 0? 1 + random.nextInt(1000): (long) Math.exp(random.nextDouble() * 36);
+            long origin = b % 3 == 0? 0: TimeMillis.nextRandomTimestamp(random);
+            Bucketer bucketer = Bucketer.ofMillis(width, origin);
+            for (int i = 0; i < 5_000; i++) {
+                long timestamp = i % 3 == 0? origin + (random.nextInt(5) - 2) * width + random.nextInt(3) - 1:
+                        TimeMillis.nextRandomTimestamp(random);
+                String vector = width + " " + origin + " " + timestamp;
+                long expected = Math.floorDiv(timestamp - origin, width);
+                assertEquals(vector, expected, bucketer.bucket(timestamp));
+                assertEquals(vector, origin + expected * width, bucketer.truncate(timestamp));
+            }
+            // and beyond the supported range, where it falls back
+            assertEquals(Math.floorDiv(Long.MIN_VALUE / 2 - origin, width), bucketer.bucket(Long.MIN_VALUE / 2));
+            assertEquals(Math.floorDiv(Long.MAX_VALUE / 2 - origin, width), bucketer.bucket(Long.MAX_VALUE / 2));
+        }
+    }
+
+    @Test
+    public void testWide()
+    {
+        // far beyond the supported years, where the multiply uses all 128 bits
+        Random random = new Random();
+        for (long width: new long[]{1, 2, 3, 7, 1000, 86_400_000, (1L << 32) + 1, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            Bucketer bucketer = Bucketer.ofMillis(width);
+            for (int i = 0; i < 10_000; i++) {
+                long timestamp = i == 0? Long.MAX_VALUE: i == 1? Long.MIN_VALUE: random.nextLong() >> random.nextInt(64);
+                assertEquals(width + " " + timestamp, Math.floorDiv(timestamp, width), bucketer.bucket(timestamp));
+            }
+        }
+    }
+
+    @Test
+    public void testCalendar()
+    {
+        Random random = new Random();
+        Bucketer weeks = Bucketer.ofWeeks(1), quarters = Bucketer.ofQuarters(), years = Bucketer.ofYears();
+        // years starting in April
+        Bucketer fiscalYears = Bucketer.ofMonths(12, TimeMillis.of(2000, 4, 10));
+        final long begin = TimeMillis.of(1, 1, 1), end = TimeMillis.of(9999, 1, 1);
+        for (int i = 0; i < 200_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random, begin, end);
+            ZonedDateTime date = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC);
+            ZonedDateTime startOfDay = date.truncatedTo(ChronoUnit.DAYS);
+            String vector = timestamp + " " + date;
+            ZonedDateTime week = startOfDay.with(DayOfWeek.MONDAY);
+            assertEquals(vector, week.toInstant().toEpochMilli(), weeks.truncate(timestamp));
+            assertEquals(vector, Math.floorDiv(week.toLocalDate().toEpochDay() - 4, 7), weeks.bucket(timestamp));
+            ZonedDateTime quarter = startOfDay.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+            assertEquals(vector, quarter.toInstant().toEpochMilli(), quarters.truncate(timestamp));
+            assertEquals(vector, (date.getYear() - 1970) * 4 + (date.getMonthValue() - 1) / 3, quarters.bucket(timestamp));
+            assertEquals(vector, startOfDay.withDayOfYear(1).toInstant().toEpochMilli(), years.truncate(timestamp));
+            assertEquals(vector, date.getYear() - 1970, years.bucket(timestamp));
+            int fiscalYear = date.getMonthValue() >= 4? date.getYear(): date.getYear() - 1;
+            assertEquals(vector, fiscalYear - 2000, fiscalYears.bucket(timestamp));
+            assertEquals(vector, TimeMillis.of(fiscalYear, 4, 1), fiscalYears.truncate(timestamp));
+        }
+    }
+
+    @Test
+    public void testBucketIndexes()
+    {
+        Random random = new Random();
+        Bucketer bucketer = Bucketer.ofMinutes(5);
+        long from = TimeMillis.of(2020, 1, 1, 0, 2, 0);
+        long[] timestamps = new long[10_005];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = from + random.nextInt(86_400_000) - 1000;
+        }
+        int[] indexes = new int[timestamps.length + 2];
+        bucketer.bucketIndexes(from, timestamps, 5, indexes, 2, timestamps.length - 5);
+        for (int i = 5; i < timestamps.length; i++) {
+            // the first bucket started at midnight
+            long expected = Math.floorDiv(timestamps[i] - TimeMillis.of(2020, 1, 1), 5 * 60_000L);
+            assertEquals(timestamps[i] + "", expected, indexes[i - 3]);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRange()
+    {
+        Bucketer.ofHours(1).bucketIndexes(0, new long[10], 2, new int[10], 0, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWidth()
+    {
+        Bucketer.ofMillis(0);
+    }
+}
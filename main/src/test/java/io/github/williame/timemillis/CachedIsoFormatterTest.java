@@ -0,0 +1,52 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CachedIsoFormatterTest
+{
+    @Test
+    public void test() throws Exception
+    {
+        final CachedIsoFormatter formatter = new CachedIsoFormatter();
+        final long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final long seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    char[] chars = new char[24];
+                    byte[] bytes = new byte[24];
+                    long timestamp = start;
+                    for (int i = 0; i < 100_000; i++) {
+                        // mostly forwards with the odd straggler and jump, as threads racing on a clock would be
+                        timestamp += random.nextInt(10) == 0? random.nextInt(4000) - 2000: random.nextInt(3);
+                        String expected = TimeMillis.toIsoString(timestamp);
+                        assertEquals(expected, formatter.toIsoString(timestamp));
+                        assertEquals("x" + expected, formatter.toIsoString(timestamp, new StringBuilder("x")).toString());
+                        assertEquals(expected, new String(chars, 0, formatter.formatIso(timestamp, chars, 0)));
+                        assertEquals(expected, new String(bytes, 0, formatter.formatIso(timestamp, bytes, 0),
+                                StandardCharsets.US_ASCII));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
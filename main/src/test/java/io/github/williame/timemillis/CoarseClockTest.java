@@ -0,0 +1,65 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoarseClockTest
+{
+    @Test
+    public void test() throws InterruptedException
+    {
+        for (CoarseClock clock: new CoarseClock[]{CoarseClock.ticking(10), CoarseClock.lazy(10), CoarseClock.ticking(1000)}) {
+            try {
+                long first = clock.millis();
+                for (int i = 0; i < 50; i++) {
+                    long before = System.currentTimeMillis();
+                    long millis = clock.millis();
+                    long after = System.currentTimeMillis();
+                    assertEquals(0, millis % clock.getPrecision());
+                    // a tick late at worst, allowing for the ticker not being scheduled at once
+                    assertTrue(millis + " " + before, millis >= before - clock.getPrecision() - 500);
+                    assertTrue(millis + " " + after, millis <= after);
+                    // a tick at or after millis, perhaps the next
+                    String isoString = clock.isoString();
+                    long tick = TimeMillis.parse(isoString);
+                    assertEquals(isoString, TimeMillis.toIsoString(tick), isoString);
+                    assertEquals(isoString, 0, tick % clock.getPrecision());
+                    assertTrue(isoString, tick >= millis && tick <= System.currentTimeMillis());
+                    // the day and hour of one tick, read between two reads of the same millis
+                    long tickMillis, day, hour;
+                    do {
+                        tickMillis = clock.millis();
+                        day = clock.day();
+                        hour = clock.hour();
+                    } while (clock.millis() != tickMillis);
+                    assertEquals(TimeMillis.truncateToDays(tickMillis), day);
+                    assertEquals(TimeMillis.truncateToHours(tickMillis), hour);
+                    Thread.sleep(3);
+                }
+                if (clock.getPrecision() == 10) {
+                    assertTrue(clock.millis() > first);
+                }
+            } finally {
+                clock.close();
+            }
+        }
+    }
+
+    @Test
+    public void testClose() throws InterruptedException
+    {
+        CoarseClock clock = CoarseClock.ticking(60_000);
+        clock.close();
+        // lazy from then on
+        long millis = clock.millis();
+        assertTrue(millis <= System.currentTimeMillis());
+        assertTrue(millis > System.currentTimeMillis() - 61_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrecision()
+    {
+        CoarseClock.lazy(0);
+    }
+}
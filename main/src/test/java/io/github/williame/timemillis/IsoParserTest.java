@@ -0,0 +1,154 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IsoParserTest {
+
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        for (int i = 0; i < 100_000; i++) {
+            Instant instant = Instant.ofEpochSecond(
+                    Math.floorDiv(TimeMillis.nextRandomTimestamp(random, MIN_TIMESTAMP, MAX_TIMESTAMP), 1000),
+                    random.nextInt(1000_000_000));
+            int offsetSecs = (random.nextInt(36) - 18) * 3600 + random.nextInt(4) * 900;
+            ZoneOffset offset = i % 4 == 0? ZoneOffset.UTC: ZoneOffset.ofTotalSeconds(offsetSecs);
+            LocalDateTime local = LocalDateTime.ofEpochSecond(instant.getEpochSecond(), instant.getNano(), offset);
+            int weekBasedYear = local.get(IsoFields.WEEK_BASED_YEAR);
+            if (local.getYear() < 0 || local.getYear() > 9999 || weekBasedYear < 0 || weekBasedYear > 9999) {
+                continue;
+            }
+            boolean extended = random.nextBoolean();
+            int fractionDigits = random.nextInt(10);
+            String vector = date(local, random.nextInt(3), extended) +
+                    "T t ".charAt(random.nextInt(3)) +
+                    time(local, fractionDigits, extended) +
+                    offset(offset, random.nextInt(3), extended);
+            // truncate to the written precision
+            long nanos = instant.getNano() / POWERS_OF_TEN[9 - fractionDigits] * POWERS_OF_TEN[9 - fractionDigits];
+            Instant expected = Instant.ofEpochSecond(instant.getEpochSecond(), nanos);
+            assertEquals(vector, expected.toEpochMilli(), IsoParser.parseMillis(vector));
+            assertEquals(vector, expected.getEpochSecond() * 1000_000 + expected.getNano() / 1000, IsoParser.parseMicros(vector));
+            if (expected.getEpochSecond() > -9_000_000_000L && expected.getEpochSecond() < 9_000_000_000L) {
+                assertEquals(vector, expected.getEpochSecond() * 1000_000_000 + expected.getNano(), IsoParser.parseNanos(vector));
+            }
+            char[] chars = (" " + vector + " ").toCharArray();
+            byte[] bytes = chars(chars);
+            assertEquals(vector, expected.toEpochMilli(), IsoParser.parseMillis(chars, 1, chars.length - 1));
+            assertEquals(vector, expected.toEpochMilli(), IsoParser.parseMillis(bytes, 1, bytes.length - 1));
+            assertEquals(vector, expected.toEpochMilli(), IsoParser.parseMillis(ByteBuffer.wrap(bytes), 1, bytes.length - 2));
+            assertEquals(vector, expected.toEpochMilli(), IsoParser.parseMillis(new StringBuilder(vector)));
+            assertEquals(vector, expected.toEpochMilli(), TimeMillis.parse(vector));
+        }
+    }
+
+    @Test
+    public void testReducedPrecision()
+    {
+        long expected = Instant.parse("2020-02-29T13:00:00Z").toEpochMilli();
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29T13"));
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29T13:00"));
+        assertEquals(expected, IsoParser.parseMillis("20200229T1300Z"));
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29T14+01"));
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29T15:30+02:30"));
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29T11:00:00.000000000-02:00"));
+        assertEquals(expected, IsoParser.parseMillis("2020-02-29 13:00:00,0z"));
+        assertEquals(expected - 13 * 3600_000, IsoParser.parseMillis("2020-02-29"));
+        assertEquals(expected - 13 * 3600_000, IsoParser.parseMillis("2020-060"));
+        assertEquals(expected - 13 * 3600_000, IsoParser.parseMillis("2020W096"));
+        assertEquals(expected - (5 * 24 + 13) * 3600_000, IsoParser.parseMillis("2020-W09"));
+        assertEquals(Instant.parse("2020-12-31T00:00:00Z").toEpochMilli(), IsoParser.parseMillis("2020-W53-4"));
+        assertEquals(Instant.parse("2019-12-30T00:00:00Z").toEpochMilli(), IsoParser.parseMillis("2020-W01-1"));
+        assertEquals(Instant.parse("0000-01-01T00:00:00Z").toEpochMilli(), IsoParser.parseMillis("0000-01-01T00:00:00.000Z"));
+        assertEquals(Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli(), IsoParser.parseMillis("9999-12-31T23:59:59.999Z"));
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        for (String vector: new String[]{
+                "", "2020", "2020-", "2020-02", "2020-02-", "2020-02-2", "2020-2-29", "20-02-29",
+                "2020-13-01", "2020-00-01", "2020-02-30", "2021-02-29", "2020-04-31", "2020-02-00",
+                "2020-000", "2021-366", "2020-367", "2020-W00", "2020-W54", "2021-W53", "2020-W01-0", "2020-W01-8",
+                "2020-02-29T", "2020-02-29T1", "2020-02-29T24:00", "2020-02-29T23:60", "2020-02-29T23:59:60",
+                "2020-02-29T13:30:20.", "2020-02-29T13:30:20.1234567890Z", "2020-02-29T13:30.5",
+                "2020-02-29T13:30:20Z ", "2020-02-29T13:30:20+", "2020-02-29T13:30:20+1", "2020-02-29T13:30:20+19:00",
+                "2020-02-29T13:30:20+01:60", "2020-02-29T13:30:20+0100", "2020-02-29T13:30:20ZZ", "2020-02-29X13:30:20",
+                "20200229T13:30:20", "2020-02-29T133020", "2020-0229", "202002-29",
+                "2020-02-29T13:30:20.034Z ", "2020-02-29T13:30:20.034z!", "2020-13-29T13:30:20.034Z", "2020-02-29T25:30:20.034Z",
+                "2020-02-29T13:3\u0660:20.034Z", "\u0662020-02-29",
+                "0000-01-01T00:00:00+01:00", "9999-12-31T23:59:59-01:00"}) {
+            assertEquals(vector, IsoParser.INVALID, IsoParser.parseMillis(vector));
+            assertEquals(vector, IsoParser.INVALID, IsoParser.parseMicros(vector));
+            assertEquals(vector, IsoParser.INVALID, IsoParser.parseNanos(vector));
+            byte[] bytes = vector.getBytes(StandardCharsets.UTF_8);
+            assertEquals(vector, IsoParser.INVALID, IsoParser.parseMillis(bytes, 0, bytes.length));
+        }
+        // longer than the parser's window
+        char[] zeros = new char[100];
+        Arrays.fill(zeros, '0');
+        assertEquals(IsoParser.INVALID, IsoParser.parseMillis("2020-02-29T13:30:20Z" + new String(zeros)));
+        assertEquals(IsoParser.INVALID, IsoParser.parseMillis("2020-" + new String(zeros)));
+        assertEquals(IsoParser.INVALID, IsoParser.parseNanos("1677-09-21T00:00:00Z"));
+        assertEquals(IsoParser.INVALID, IsoParser.parseNanos("2262-04-12T00:00:00Z"));
+    }
+
+    private static String date(LocalDateTime local, int form, boolean extended) {
+        String sep = extended? "-": "";
+        switch (form) {
+            case 0:
+                return String.format("%04d%s%02d%s%02d", local.getYear(), sep, local.getMonthValue(), sep, local.getDayOfMonth());
+            case 1:
+                return String.format("%04d%s%03d", local.getYear(), sep, local.getDayOfYear());
+            default:
+                return String.format("%04d%sW%02d%s%d", local.get(IsoFields.WEEK_BASED_YEAR), sep,
+                        local.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), sep, local.getDayOfWeek().getValue());
+        }
+    }
+
+    private static String time(LocalDateTime local, int fractionDigits, boolean extended) {
+        String sep = extended? ":": "";
+        String time = String.format("%02d%s%02d%s%02d", local.getHour(), sep, local.getMinute(), sep, local.getSecond());
+        if (fractionDigits > 0) {
+            time += ".,".charAt(fractionDigits & 1) +
+                    String.format("%09d", local.getNano()).substring(0, fractionDigits);
+        }
+        return time;
+    }
+
+    private static String offset(ZoneOffset offset, int form, boolean extended) {
+        int secs = offset.getTotalSeconds();
+        if (secs == 0 && form < 2) {
+            return form == 0? "Z": "";
+        }
+        int hours = Math.abs(secs) / 3600, minutes = Math.abs(secs) / 60 % 60;
+        return String.format("%s%02d%s%02d", secs < 0? "-": "+", hours, extended? ":": "", minutes);
+    }
+
+    private static byte[] chars(char[] chars) {
+        byte[] bytes = new byte[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            bytes[i] = (byte) chars[i];
+        }
+        return bytes;
+    }
+
+    private static final long
+            MIN_TIMESTAMP = Instant.parse("0000-01-01T00:00:00Z").toEpochMilli(),
+            MAX_TIMESTAMP = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli() + 1;
+
+    private static final long[] POWERS_OF_TEN = new long[]{
+            1, 10, 100, 1000, 10_000, 100_000, 1000_000, 10_000_000, 100_000_000, 1000_000_000 };
+}
@@ -0,0 +1,136 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+
+public class TimeBucketCounterTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        TimeBucketCounter counter = TimeBucketCounter.ofMinutes(60);
+        long now = TimeMillis.of(2020, 5, 1, 12, 0, 0);
+        long[] expected = new long[180];
+        // three hours of events, a minute at a time, with some late by up to two minutes
+        for (int minute = 0; minute < expected.length; minute++) {
+            long start = now + minute * 60_000L;
+            for (int i = random.nextInt(100); i > 0; i--) {
+                int late = random.nextInt(10) == 0? random.nextInt(3): 0;
+                if (minute - late >= 0) {
+                    long n = 1 + random.nextInt(3);
+                    assertTrue(counter.add(start - late * 60_000L + random.nextInt(60_000), n));
+                    expected[minute - late] += n;
+                }
+            }
+            assertEquals(expected[minute], counter.get(start + 59_999));
+        }
+        long last = now + (expected.length - 1) * 60_000L;
+        long[] counts = new long[60];
+        counter.snapshot(last, counts);
+        for (int i = 0; i < 60; i++) {
+            assertEquals(i + "", expected[expected.length - 60 + i], counts[i]);
+        }
+        // an hour ago has been rolled over
+        assertEquals(0, counter.get(last - 60 * 60_000L));
+        assertFalse(counter.increment(last - 60 * 60_000L));
+        // and before 1970
+        TimeBucketCounter hours = TimeBucketCounter.ofHours(24);
+        long old = TimeMillis.of(1901, 2, 3, 4, 5, 6);
+        assertTrue(hours.increment(old));
+        assertTrue(hours.increment(old + 1000));
+        assertEquals(2, hours.get(TimeMillis.truncateToHours(old)));
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException
+    {
+        final TimeBucketCounter counter = TimeBucketCounter.of(Bucketer.ofMillis(10), 8);
+        final long begin = TimeMillis.of(2020, 5, 1);
+        final int buckets = 1000;
+        final AtomicLongArray expected = new AtomicLongArray(buckets);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                // the threads move through the buckets together, so the slots roll over while they count
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    for (int i = random.nextInt(50); i > 0; i--) {
+                        if (counter.increment(begin + bucket * 10 + random.nextInt(10))) {
+                            expected.incrementAndGet(bucket);
+                        }
+                    }
+                    if (bucket % 100 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (Thread thread: threads) {
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        long[] counts = new long[8];
+        counter.snapshot(begin + (buckets - 1) * 10, counts);
+        for (int i = 0; i < counts.length; i++) {
+            assertEquals(i + "", expected.get(buckets - counts.length + i), counts[i]);
+        }
+    }
+
+    @Test
+    public void testLate()
+    {
+        TimeBucketCounter counter = TimeBucketCounter.ofMinutes(4);
+        long start = TimeMillis.of(2020, 5, 1);
+        assertTrue(counter.increment(start + 10 * 60_000L));
+        // four minutes before the newest is out of the ring, whether its slot is empty or not
+        assertFalse(counter.increment(start + 6 * 60_000L));
+        assertFalse(counter.increment(start + 5 * 60_000L));
+        assertEquals(0, counter.get(start + 5 * 60_000L));
+        assertEquals(1, counter.get(start + 10 * 60_000L));
+        assertTrue(counter.increment(start + 7 * 60_000L));
+        assertEquals(1, counter.get(start + 7 * 60_000L));
+        assertEquals(0, counter.get(start + 11 * 60_000L));
+    }
+
+    @Test
+    public void testTagAliasing()
+    {
+        // buckets 2^24 apart share a tag and, with a ring of 4, a slot
+        TimeBucketCounter counter = TimeBucketCounter.of(Bucketer.ofMillis(1), 4);
+        assertTrue(counter.increment(1));
+        assertTrue(counter.increment(1 << 24));
+        assertEquals(0, counter.get(1));
+        assertTrue(counter.increment((1 << 24) + 1));
+        assertEquals(1, counter.get((1 << 24) + 1));
+        assertFalse(counter.increment(1));
+        // and a slot left alone while the newest moves on
+        counter = TimeBucketCounter.of(Bucketer.ofMillis(1), 4);
+        assertTrue(counter.increment(2));
+        for (long bucket = 4; bucket <= 1 << 24; bucket += 4) {
+            assertTrue(counter.increment(bucket));
+        }
+        assertEquals(0, counter.get((1 << 24) + 2));
+        assertTrue(counter.increment((1 << 24) + 2));
+        assertEquals(1, counter.get((1 << 24) + 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSlots()
+    {
+        TimeBucketCounter.ofMinutes(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManySlots()
+    {
+        TimeBucketCounter.ofMinutes((1 << 22) + 1);
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeMicrosTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        char[] chars = new char[40];
+        byte[] bytes = new byte[40];
+        ByteBuffer direct = ByteBuffer.allocateDirect(40);
+        for (int i = 0; i < 1_000_000; i++) {
+            long timestamp = TimeMicros.nextRandomTimestamp(random);
+            switch (i % 4) {
+                case 0: // whole millis, so the fraction is written as 3 digits
+                    timestamp = TimeMicros.truncateToMillis(timestamp);
+                    break;
+                case 1: // whole seconds, with no fraction at all
+                    timestamp = TimeMicros.truncateToSeconds(timestamp);
+                    break;
+            }
+            Instant instant = TimeMicros.toInstant(timestamp);
+            ZonedDateTime date = instant.atZone(ZoneOffset.UTC);
+            String vector = timestamp + " " + instant;
+            assertEquals(vector, Instant.EPOCH.plus(timestamp, ChronoUnit.MICROS), instant);
+            assertEquals(vector, timestamp, TimeMicros.ofInstant(instant));
+            assertEquals(vector, instant.toString(), TimeMicros.toIsoString(timestamp));
+            assertEquals(vector, "[" + instant, TimeMicros.toIsoString(timestamp, new StringBuilder("[")).toString());
+            assertEquals(vector, instant.toString(), new String(chars, 3, TimeMicros.formatIso(timestamp, chars, 3) - 3));
+            assertEquals(vector, instant.toString(),
+                    new String(bytes, 3, TimeMicros.formatIso(timestamp, bytes, 3) - 3, StandardCharsets.US_ASCII));
+            direct.clear();
+            direct.position(3);
+            int end = TimeMicros.formatIso(timestamp, direct);
+            byte[] written = new byte[end - 3];
+            direct.position(3);
+            direct.get(written);
+            assertEquals(vector, instant.toString(), new String(written, StandardCharsets.US_ASCII));
+            assertEquals(vector, timestamp, TimeMicros.parse(instant.toString()));
+            assertEquals(vector, timestamp, TimeMicros.parse(instant.plusNanos(random.nextInt(1000)).toString()));
+            assertEquals(vector, TimeMicros.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+                    date.getHour(), date.getMinute(), date.getSecond(), date.getNano() / 1000), timestamp);
+            assertEquals(vector, date.getYear(), TimeMicros.getYear(timestamp));
+            assertEquals(vector, date.getMonthValue(), TimeMicros.getMonth(timestamp));
+            assertEquals(vector, date.getDayOfMonth(), TimeMicros.dayOfMonth(timestamp));
+            assertEquals(vector, date.getDayOfYear(), TimeMicros.dayOfYear(timestamp));
+            assertEquals(vector, date.getDayOfWeek().getValue(), TimeMicros.dayOfWeek(timestamp));
+            assertEquals(vector, date.getHour(), TimeMicros.getHour(timestamp));
+            assertEquals(vector, date.getMinute(), TimeMicros.getMinute(timestamp));
+            assertEquals(vector, date.getSecond(), TimeMicros.getSecond(timestamp));
+            assertEquals(vector, date.getNano() / 1000_000, TimeMicros.getMilliseconds(timestamp));
+            assertEquals(vector, date.getNano() / 1000, TimeMicros.getMicroseconds(timestamp));
+            assertEquals(vector, date.getNano(), TimeMicros.getNanoseconds(timestamp));
+            assertEquals(vector, instant.toEpochMilli(), TimeMicros.toMillis(timestamp));
+            assertEquals(vector, TimeMicros.ofMillis(instant.toEpochMilli()), TimeMicros.truncateToMillis(timestamp));
+            assertEquals(vector, TimeMicros.ofInstant(date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).toInstant()),
+                    TimeMicros.truncateToMonths(timestamp));
+            assertEquals(vector, TimeMicros.ofInstant(instant.truncatedTo(ChronoUnit.DAYS)), TimeMicros.truncateToDays(timestamp));
+            assertEquals(vector, TimeMicros.ofInstant(instant.truncatedTo(ChronoUnit.HOURS)), TimeMicros.truncateToHours(timestamp));
+            assertEquals(vector, TimeMicros.ofInstant(instant.truncatedTo(ChronoUnit.MINUTES)), TimeMicros.truncateToMinutes(timestamp));
+        }
+    }
+
+    @Test
+    public void testOfInstantRange()
+    {
+        for (long timestamp: new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE, -1, 0}) {
+            assertEquals(timestamp, TimeMicros.ofInstant(Instant.EPOCH.plus(timestamp, ChronoUnit.MICROS)));
+        }
+        // a fraction of a micro is dropped
+        assertEquals(Long.MIN_VALUE, TimeMicros.ofInstant(Instant.EPOCH.plus(Long.MIN_VALUE, ChronoUnit.MICROS).plusNanos(999)));
+        for (Instant instant: new Instant[]{Instant.MAX, Instant.MIN, Instant.EPOCH.plus(Long.MAX_VALUE, ChronoUnit.MICROS).plusNanos(1000),
+                Instant.EPOCH.plus(Long.MIN_VALUE, ChronoUnit.MICROS).minusNanos(1)}) {
+            try {
+                TimeMicros.ofInstant(instant);
+                fail(instant.toString());
+            } catch (ArithmeticException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testParse()
+    {
+        assertEquals(TimeMicros.of(2020, 2, 29, 13, 30, 20, 123_456), TimeMicros.parse("2020-02-29T13:30:20.123456Z"));
+        assertEquals(TimeMicros.of(2020, 2, 29, 13, 30, 20, 123_456), TimeMicros.parse("2020-02-29T13:30:20.123456789Z"));
+        assertEquals(TimeMicros.of(2020, 2, 29, 12, 30, 20, 100_000), TimeMicros.parse("2020-02-29T13:30:20.1+01:00"));
+        assertEquals(TimeMicros.INVALID, TimeMicros.parse("2020-02-30T13:30:20.123456Z"));
+        assertEquals(TimeMicros.INVALID, TimeMicros.parse("2020-02-29 13:30:20.1234567890"));
+    }
+}
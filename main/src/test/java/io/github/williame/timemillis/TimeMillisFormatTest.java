@@ -0,0 +1,86 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeMillisFormatTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        char[] chars = new char[40];
+        byte[] bytes = new byte[40];
+        for (String pattern: new String[]{"yyyyMMdd HH:mm:ss", "dd/MM/yyyy", "dd/MMM/yyyy:HH:mm:ss",
+                "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "HH:mm:ss.SSS yyyy-MM-dd", "yyyy-MM", "MMM dd, yyyy 'at' HH'h'mm",
+                "'quoted ''text'''yyyy''", "ss"}) {
+            TimeMillisFormat format = TimeMillisFormat.compile(pattern);
+            // yyyy is the year of the era in DateTimeFormatter, so 0000 would be 0001 BC
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern.replace("yyyy", "uuuu"), Locale.ENGLISH)
+                    .withZone(ZoneOffset.UTC);
+            for (int i = 0; i < 100_000; i++) {
+                long timestamp = TimeMillis.nextRandomTimestamp(random);
+                String expected = formatter.format(Instant.ofEpochMilli(timestamp));
+                String vector = pattern + " " + timestamp + " " + expected;
+                assertEquals(vector, expected, format.format(timestamp));
+                assertEquals(vector, expected.length(), format.length());
+                assertEquals(vector, expected, new String(chars, 3, format.format(timestamp, chars, 3) - 3));
+                assertEquals(vector, expected,
+                        new String(bytes, 3, format.format(timestamp, bytes, 3) - 3, StandardCharsets.US_ASCII));
+                // what the pattern holds of the timestamp, with 1970-01-01T00:00:00.000 for the rest
+                long parsed = format.parse(expected);
+                assertEquals(vector, expected, format.format(parsed));
+                assertEquals(vector, parsed, format.parse(("[" + expected + "]").toCharArray(), 1, expected.length() + 1));
+                assertEquals(vector, parsed, format.parse(expected.getBytes(StandardCharsets.US_ASCII), 0, expected.length()));
+            }
+        }
+        TimeMillisFormat format = TimeMillisFormat.compile("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        for (int i = 0; i < 100_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            // the same instant as the hardcoded ISO parser reads it
+            assertEquals(timestamp, TimeMillis.parse(format.format(timestamp)));
+            assertEquals(timestamp, format.parse(format.format(timestamp)));
+        }
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        TimeMillisFormat format = TimeMillisFormat.compile("dd/MMM/yyyy:HH:mm:ss");
+        assertEquals(TimeMillis.of(2020, 2, 29, 13, 30, 20), format.parse("29/Feb/2020:13:30:20"));
+        for (String invalid: new String[]{"29/Feb/2020:13:30:2", "29/Feb/2020:13:30:200", "29-Feb-2020:13:30:20",
+                "30/Feb/2020:13:30:20", "29/Feb/2021:13:30:20", "29/feb/2020:13:30:20", "29/Foo/2020:13:30:20",
+                "29/Feb/2020:24:30:20", "29/Feb/2020:13:60:20", "29/Feb/2020:13:30:60", "2x/Feb/2020:13:30:20",
+                "29/Feb/2020:13:30:2\u0661", "29/H\u0261n/2020:13:30:20", "29/\u0146an/2020:13:30:20"}) {
+            assertEquals(invalid, TimeMillis.INVALID, format.parse(invalid));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNonAsciiBytes()
+    {
+        TimeMillisFormat format = TimeMillisFormat.compile("dd.MM.yyyy '\u00e0' HH:mm");
+        assertEquals("29.02.2020 \u00e0 13:30", format.format(TimeMillis.of(2020, 2, 29, 13, 30, 0)));
+        format.format(TimeMillis.of(2020, 2, 29, 13, 30, 0), new byte[format.length()], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupported()
+    {
+        TimeMillisFormat.compile("yy-MM-dd");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminated()
+    {
+        TimeMillisFormat.compile("yyyy-MM-dd'T");
+    }
+}
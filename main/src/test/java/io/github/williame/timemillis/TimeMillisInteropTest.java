@@ -0,0 +1,120 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeMillisInteropTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        ZoneId zone = ZoneId.of("America/New_York");
+        char[] chars = new char[64];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < 100_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            Instant instant = Instant.ofEpochSecond(Math.floorDiv(timestamp, 1000), random.nextInt(1000_000_000));
+            if (i % 3 == 0) {
+                instant = instant.minusNanos(instant.getNano() % 1000);
+            }
+            String expected = instant.toString();
+            assertEquals(instant.toEpochMilli(), TimeMillisInterop.toMillis(instant));
+            LocalDateTime dateTime = LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+            assertEquals(expected, instant.toEpochMilli(), TimeMillisInterop.toMillis(dateTime));
+            assertEquals(expected, TimeMillis.truncateToDays(instant.toEpochMilli()),
+                    TimeMillisInterop.toMillis(dateTime.toLocalDate()));
+            OffsetDateTime offsetDateTime = instant.atOffset(ZoneOffset.ofTotalSeconds((random.nextInt(48) - 24) * 1800));
+            assertEquals(expected, instant.toEpochMilli(), TimeMillisInterop.toMillis(offsetDateTime));
+            ZonedDateTime zonedDateTime = instant.atZone(zone);
+            assertEquals(expected, instant.toEpochMilli(), TimeMillisInterop.toMillis(zonedDateTime));
+            assertEquals(expected, dateTime.toLocalDate(), TimeMillisInterop.toLocalDate(instant.toEpochMilli()));
+            // formatted into the middle of a buffer
+            int end = TimeMillisInterop.formatIso(instant, chars, 3);
+            assertEquals(expected, new String(chars, 3, end - 3));
+            end = TimeMillisInterop.formatIso(instant, bytes, 5);
+            assertEquals(expected, new String(bytes, 5, end - 5, StandardCharsets.US_ASCII));
+            assertEquals("x" + expected, TimeMillisInterop.toIsoString(instant, new StringBuilder("x")).toString());
+        }
+    }
+
+    @Test
+    public void testOutOfRange()
+    {
+        char[] chars = new char[64];
+        byte[] bytes = new byte[64];
+        for (Instant instant: new Instant[]{Instant.MIN, Instant.MAX, Instant.parse("+10000-01-01T00:00:00Z"),
+                Instant.parse("-0001-12-31T23:59:59.999999999Z"), Instant.ofEpochSecond(Integer.MAX_VALUE * 86_400L)}) {
+            String expected = instant.toString();
+            assertEquals(expected, new String(chars, 0, TimeMillisInterop.formatIso(instant, chars, 0)));
+            assertEquals(expected, new String(bytes, 0, TimeMillisInterop.formatIso(instant, bytes, 0), StandardCharsets.US_ASCII));
+            assertEquals(expected, TimeMillisInterop.toIsoString(instant, new StringBuilder()).toString());
+            // TimeSecs writes millis
+            String millis = Instant.ofEpochSecond(instant.getEpochSecond(), instant.getNano() / 1000_000 * 1000_000L).toString();
+            assertEquals(millis, TimeSecs.toIsoString(instant));
+            assertEquals(millis, TimeSecs.toIsoString(instant, new StringBuilder()).toString());
+        }
+        // the edges of what TimeMillis can write itself
+        for (Instant instant: new Instant[]{Instant.parse("0000-01-01T00:00:00Z"), Instant.parse("9999-12-31T23:59:59.999999999Z")}) {
+            assertEquals(instant.toString(), new String(chars, 0, TimeMillisInterop.formatIso(instant, chars, 0)));
+        }
+        LocalDate farFuture = LocalDate.of(1_000_000, 1, 1);
+        assertEquals(farFuture, LocalDate.ofEpochDay(TimeMillisInterop.toMillis(farFuture) / 86_400_000));
+        try {
+            TimeMillisInterop.toMillis(Instant.MAX);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+        try {
+            TimeMillisInterop.toMillis(LocalDate.MAX);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+    }
+
+    @Test
+    public void testToMillisRange()
+    {
+        // either side of the ends of a long of millis, as toEpochMilli has them
+        for (long millis: new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE, -1, 0}) {
+            for (int nanos: new int[]{0, 1, 999_999}) {
+                Instant instant = Instant.ofEpochMilli(millis).plusNanos(nanos);
+                assertEquals(instant.toString(), instant.toEpochMilli(), TimeMillisInterop.toMillis(instant));
+            }
+        }
+        for (Instant instant: new Instant[]{Instant.ofEpochMilli(Long.MIN_VALUE).minusNanos(1),
+                Instant.ofEpochMilli(Long.MAX_VALUE).plusMillis(1)}) {
+            try {
+                TimeMillisInterop.toMillis(instant);
+                fail(instant.toString());
+            } catch (ArithmeticException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testLocalDateCache()
+    {
+        long today = TimeMillis.of(2024, 2, 29, 13, 14, 15, 16);
+        LocalDate date = TimeMillisInterop.toLocalDate(today);
+        assertEquals(LocalDate.of(2024, 2, 29), date);
+        assertSame(date, TimeMillisInterop.toLocalDate(TimeMillis.truncateToDays(today)));
+        assertSame(date, TimeMillisInterop.toLocalDate(TimeMillis.truncateToDays(today) + 86_399_999));
+        assertEquals(LocalDate.of(2024, 3, 1), TimeMillisInterop.toLocalDate(TimeMillis.truncateToDays(today) + 86_400_000));
+        // a day 1024 days away takes the same slot
+        assertEquals(LocalDate.of(2024, 2, 29).plusDays(1024), TimeMillisInterop.toLocalDate(today + 1024 * 86_400_000L));
+        assertEquals(LocalDate.of(2024, 2, 29), TimeMillisInterop.toLocalDate(today));
+        assertEquals(LocalDate.of(1969, 12, 31), TimeMillisInterop.toLocalDate(-1));
+    }
+}
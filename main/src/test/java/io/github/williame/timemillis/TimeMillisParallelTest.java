@@ -0,0 +1,109 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TimeMillisParallelTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int r = 0; r < 6; r++) {
+                long[] timestamps = new long[random.nextInt(100_000)];
+                for (int i = 0; i < timestamps.length; i++) {
+                    timestamps[i] = TimeMillis.nextRandomTimestamp(random);
+                }
+                int offset = random.nextInt(timestamps.length + 1), count = timestamps.length - offset;
+                Executor on = r % 2 == 0? pool: executor;
+                // fixed-width lines, and back
+                byte[] lines = new byte[3 + count * TimeMillisParallel.LINE_LENGTH];
+                TimeMillisParallel.formatIsoLines(timestamps, offset, lines, 3, count, on);
+                for (int i = 0; i < count; i += 1 + random.nextInt(100)) {
+                    String line = new String(lines, 3 + i * 25, 25, StandardCharsets.US_ASCII);
+                    assertEquals(line, TimeMillis.toIsoString(timestamps[offset + i]), line.replace(".000Z", "Z").trim());
+                    assertEquals(line, '\n', line.charAt(24));
+                }
+                long[] parsed = new long[count + 1];
+                assertEquals(count, TimeMillisParallel.parseLines(lines, 3, lines.length, parsed, 1, on));
+                assertArrayEquals(Arrays.copyOfRange(timestamps, offset, timestamps.length), Arrays.copyOfRange(parsed, 1, parsed.length));
+                // days
+                int[] days = new int[count];
+                TimeMillisParallel.toDayOfEpoch(timestamps, offset, days, 0, count, on);
+                long[] hours = new long[count];
+                TimeMillisParallel.apply(timestamps, offset, hours, 0, count, TimeMillis::truncateToHours, on);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(TimeMillis.dayOfEpoch(timestamps[offset + i]), days[i]);
+                    assertEquals(TimeMillis.truncateToHours(timestamps[offset + i]), hours[i]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseLines()
+    {
+        // lines of any length, some not timestamps and one longer than a part
+        Random random = new Random();
+        StringBuilder text = new StringBuilder();
+        long[] expected = new long[50_000];
+        for (int i = 0; i < expected.length; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            if (i == 1000) {
+                char[] junk = new char[500_000];
+                Arrays.fill(junk, 'x');
+                text.append(junk);
+                expected[i] = TimeMillis.INVALID;
+            } else if (random.nextInt(20) == 0) {
+                expected[i] = TimeMillis.INVALID;
+            } else {
+                text.append(random.nextBoolean()? TimeMillis.toIsoString(timestamp): Instant.ofEpochMilli(timestamp));
+                expected[i] = timestamp;
+            }
+            // the last line may go without a line end, unless it's empty and would then not be a line
+            if (i < expected.length - 1 || random.nextBoolean() || expected[i] == TimeMillis.INVALID) {
+                text.append(random.nextBoolean()? "\r\n": "\n");
+            }
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        long[] parsed = new long[expected.length];
+        assertEquals(expected.length, TimeMillisParallel.parseLines(bytes, 0, bytes.length, parsed, 0));
+        assertArrayEquals(expected, parsed);
+    }
+
+    @Test
+    public void testParts()
+    {
+        int part = TimeMillisParallel.PART_BYTES;
+        assertEquals(0, TimeMillisParallel.parts(5, 5));
+        assertEquals(1, TimeMillisParallel.parts(5, 6));
+        assertEquals(1, TimeMillisParallel.parts(0, part));
+        assertEquals(2, TimeMillisParallel.parts(0, part + 1));
+        // offsets near the end of the largest array, where rounding up in int overflows
+        assertEquals((Integer.MAX_VALUE + (long) part - 1) / part, TimeMillisParallel.parts(0, Integer.MAX_VALUE));
+        assertEquals((Integer.MAX_VALUE - 8 + (long) part - 1) / part, TimeMillisParallel.parts(0, Integer.MAX_VALUE - 8));
+        assertEquals(1, TimeMillisParallel.parts(Integer.MAX_VALUE - 10, Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRange()
+    {
+        TimeMillisParallel.formatIsoLines(new long[10], 0, new byte[9 * 25], 0, 10);
+    }
+}
@@ -3,7 +3,11 @@ package io.github.williame.timemillis;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
@@ -26,7 +30,17 @@ public class TimeMillisTest
                 "2020-02-12T03:30:20.034Z",
                 "2020-02-12T13:30:20.034Z",
                 "2020-02-29T13:30:20Z",
-                "2020-02-29T13:30:20.034Z"));
+                "2020-02-29T13:30:20.034Z",
+                "2038-01-19T03:14:08Z",
+                "2100-02-28T23:59:59.999Z",
+                "2100-03-01T00:00:00.001Z",
+                "2400-02-29T12:00:00.123Z",
+                "9999-12-31T23:59:59.999Z",
+                "1969-12-31T23:59:59.999Z",
+                "1969-12-31T00:00:00Z",
+                "1900-03-01T00:00:00.001Z",
+                "1600-02-29T12:00:00.123Z",
+                "0000-01-01T00:00:00Z"));
         Random random = new Random();
         for (int i = 0; i < 100_000; i++) {
             vectors.add(Instant.ofEpochMilli(TimeMillis.nextRandomTimestamp(random)).toString());
@@ -65,7 +79,7 @@ public class TimeMillisTest
                     instant.truncatedTo(ChronoUnit.SECONDS).toEpochMilli(),
                     TimeMillis.truncatedToSeconds(timestamp));
             Assert.assertEquals(vector,
-                    ChronoUnit.DAYS.between(Instant.EPOCH, instant),
+                    dateTime.toLocalDate().toEpochDay(),
                     TimeMillis.dayOfEpoch(timestamp));
             Assert.assertEquals(vector,
                     dateTime.getDayOfYear(),
@@ -99,4 +113,298 @@ public class TimeMillisTest
                     TimeMillis.getNanoseconds(timestamp));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParseAll()
+    {
+        Random random = new Random();
+        int count = 10_000;
+        String[] strs = new String[count];
+        long[] expected = new long[count];
+        int[] offsets = new int[count], lengths = new int[count];
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // runs of rows on the same day, some of which leave the fixed layout
+            expected[i] = i % 4 == 0? TimeMillis.nextRandomTimestamp(random):
+                    TimeMillis.truncateToDays(expected[i - 1]) + random.nextInt(86_400_000);
+            strs[i] = Instant.ofEpochMilli(expected[i]).toString();
+            if (i % 4 == 2 && strs[i].length() == 24) {
+                strs[i] = strs[i].substring(0, 19) + "+00:00";
+                expected[i] -= Math.floorMod(expected[i], 1000);
+            } else if (i % 4 == 3 && strs[i].length() == 24) {
+                strs[i] = strs[i].substring(0, 11) + "2x" + strs[i].substring(13);
+                expected[i] = TimeMillis.INVALID;
+            }
+            offsets[i] = buf.length();
+            lengths[i] = strs[i].length();
+            buf.append(strs[i]).append(',');
+        }
+        long[] out = new long[count];
+        TimeMillis.parseAll(strs, out);
+        assertArrayEquals(expected, out);
+        out = new long[count];
+        TimeMillis.parseAll(buf.toString().toCharArray(), offsets, lengths, out);
+        assertArrayEquals(expected, out);
+        out = new long[count];
+        TimeMillis.parseAll(buf.toString().getBytes(StandardCharsets.US_ASCII), offsets, lengths, out);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void testTryParse()
+    {
+        Random random = new Random();
+        int count = 10_000;
+        String[] strs = new String[count];
+        long[] expected = new long[count];
+        int[] expectedErrors = new int[count];
+        int[] offsets = new int[count], lengths = new int[count];
+        StringBuilder buf = new StringBuilder();
+        String[][] dirty = new String[][]{
+                { "2020-13-45T10:11:12.123Z", "2" }, { "2021-02-29T10:11:12.123Z", "3" },
+                { "2020-02-29T24:11:12.123Z", "4" }, { "2020-02-29T23:60:12.123Z", "5" },
+                { "2020-02-29T23:59:60.123Z", "6" }, { "2020-02-29T23:59:59.Z", "7" },
+                { "2020-02-29T23:59:59+24:00", "8" }, { "0000-01-01T00:00:00+01:00", "9" },
+                { "2020-02-29T23:59:59.123", "0" }, { "2020-02-29T23:59:5x.123Z", "1" },
+                { "", "1" }, { "garbage", "1" } };
+        int expectedInvalid = 0;
+        for (int i = 0; i < count; i++) {
+            if (i % 100 == 0) {
+                String[] row = dirty[random.nextInt(dirty.length)];
+                strs[i] = row[0];
+                expectedErrors[i] = Integer.parseInt(row[1]);
+                expected[i] = expectedErrors[i] == IsoParser.OK? Instant.parse(strs[i] + 'Z').toEpochMilli(): TimeMillis.INVALID;
+            } else {
+                expected[i] = TimeMillis.nextRandomTimestamp(random);
+                strs[i] = Instant.ofEpochMilli(expected[i]).toString();
+                assertEquals(strs[i], expected[i], TimeMillis.tryParse(strs[i]));
+            }
+            expectedInvalid += expected[i] == TimeMillis.INVALID? 1: 0;
+            offsets[i] = buf.length();
+            lengths[i] = strs[i].length();
+            buf.append(strs[i]).append(',');
+        }
+        long[] out = new long[count];
+        int[] errors = new int[count];
+        assertEquals(expectedInvalid, TimeMillis.tryParseAll(strs, out, errors));
+        assertArrayEquals(expected, out);
+        assertArrayEquals(expectedErrors, errors);
+        out = new long[count];
+        errors = new int[count];
+        assertEquals(expectedInvalid, TimeMillis.tryParseAll(buf.toString().toCharArray(), offsets, lengths, out, errors));
+        assertArrayEquals(expected, out);
+        assertArrayEquals(expectedErrors, errors);
+        out = new long[count];
+        assertEquals(expectedInvalid, TimeMillis.tryParseAll(buf.toString().getBytes(StandardCharsets.US_ASCII), offsets, lengths, out, null));
+        assertArrayEquals(expected, out);
+        for (String[] row: dirty) {
+            int[] error = new int[]{ -1 };
+            byte[] bytes = row[0].getBytes(StandardCharsets.US_ASCII);
+            TimeMillis.tryParse(ByteBuffer.wrap(bytes), 0, bytes.length, error, 0);
+            assertEquals(row[0], Integer.parseInt(row[1]), error[0]);
+        }
+    }
+
+    @Test
+    public void testParseBytes()
+    {
+        Random random = new Random();
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 10_000; i++) {
+            long expected = TimeMillis.nextRandomTimestamp(random);
+            String vector = Instant.ofEpochMilli(expected).toString();
+            byte[] bytes = ("[" + vector + "]").getBytes(StandardCharsets.UTF_8);
+            assertEquals(vector, expected, TimeMillis.parse(bytes, 1, bytes.length - 1));
+            assertEquals(vector, expected, TimeMillis.parse(ByteBuffer.wrap(bytes), 1, bytes.length - 2));
+            direct.clear();
+            direct.put(bytes).flip();
+            assertEquals(vector, expected, TimeMillis.parse(direct, 1, bytes.length - 2));
+            direct.position(1).limit(bytes.length - 1);
+            assertEquals(vector, expected, TimeMillis.parse(direct));
+            assertEquals(1, direct.position());
+        }
+    }
+
+    @Test
+    public void testParseFallback()
+    {
+        long expected = Instant.parse("2020-02-29T13:30:20.034Z").toEpochMilli();
+        // same length as the fixed ISO layout but not matching it
+        assertEquals(expected, TimeMillis.parse("2020-02-29 13:30:20.034Z"));
+        assertEquals(expected, TimeMillis.parse("2020-02-29T13:30:20.034 "));
+        assertEquals(expected, TimeMillis.parse("2020-02-29T13:30:20.034".toCharArray(), 0, 23));
+        assertEquals(expected, TimeMillis.parse("20200229133020034"));
+        assertEquals(expected - 34, TimeMillis.parse("2020-02-29T13:30:20Z"));
+        assertEquals(expected - 4, TimeMillis.parse("2020-02-29_13:30:20.03"));
+        // lenient about layout but not about fields
+        assertEquals(TimeMillis.INVALID, TimeMillis.parse("2020-13-29_13:30:20.034"));
+        assertEquals(TimeMillis.INVALID, TimeMillis.parse("2020-02-29_1x:30:20"));
+        assertEquals(TimeMillis.INVALID, TimeMillis.parse("2020"));
+        // read in place from bytes, heap and direct buffers, at an offset
+        for (String s: new String[]{"2020-02-29T14:30:20.034+01:00", "2020-02-29_13:30:20.034", "20200229133020034"}) {
+            byte[] bytes = ("[" + s + "]").getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).clear();
+            assertEquals(s, expected, TimeMillis.parse(bytes, 1, bytes.length - 1));
+            assertEquals(s, expected, TimeMillis.parse(ByteBuffer.wrap(bytes), 1, bytes.length - 2));
+            assertEquals(s, expected, TimeMillis.parse(direct, 1, bytes.length - 2));
+            assertEquals(s, expected, TimeMillis.parse(new StringBuilder("[").append(s).append(']'), 1, s.length() + 1));
+        }
+    }
+
+    @Test
+    public void testParseIsoOutOfRange()
+    {
+        // the fixed layout, but with a bad month, day, hour, minute or second
+        String[] bad = new String[]{"2020-13-45T00:00:00.000Z", "2021-00-01T00:00:00.000Z", "2021-01-45T00:00:00.000Z",
+                "2021-02-29T00:00:00.000Z", "2021-01-01T99:99:99.000Z", "2021-01-01T24:00:00.000Z",
+                "2021-01-01T23:60:00.000Z", "2021-01-01T23:59:60.000Z"};
+        for (String s: bad) {
+            byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.parse(s));
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.parse(s.toCharArray(), 0, s.length()));
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.parse(bytes, 0, bytes.length));
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.parse(ByteBuffer.wrap(bytes)));
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.tryParse(s));
+            assertEquals(s, TimeMillis.INVALID, TimeMillis.tryParse(bytes, 0, bytes.length));
+            // after a good row on the same day, so only the time is read, and on its own
+            String good = s.substring(0, 11) + "12:00:00.000Z";
+            long expected = TimeMillis.parse(good);
+            long[] out = new long[3];
+            TimeMillis.parseAll(new String[]{good, s, good}, out);
+            assertArrayEquals(s, new long[]{expected, TimeMillis.INVALID, expected}, out);
+            TimeMillis.parseAll((good + s).getBytes(StandardCharsets.US_ASCII), new int[]{0, 24}, new int[]{24, 24}, out, 0, 2);
+            assertArrayEquals(s, new long[]{expected, TimeMillis.INVALID, expected}, out);
+            TimeMillis.parseAll(new String[]{s}, out);
+            assertEquals(s, TimeMillis.INVALID, out[0]);
+        }
+    }
+
+    @Test
+    public void testFormat()
+    {
+        Random random = new Random();
+        char[] chars = new char[32];
+        byte[] bytes = new byte[32];
+        ByteBuffer heap = ByteBuffer.allocate(32), direct = ByteBuffer.allocateDirect(32);
+        for (int i = 0; i < 10_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            if (i % 10 == 0) {
+                timestamp = TimeMillis.truncatedToSeconds(timestamp);
+            }
+            Instant instant = Instant.ofEpochMilli(timestamp);
+            String vector = instant.toString();
+            assertEquals(vector, 3 + vector.length(), TimeMillis.formatIso(timestamp, chars, 3));
+            assertEquals(vector, new String(chars, 3, vector.length()));
+            assertEquals(vector, 3 + vector.length(), TimeMillis.formatIso(timestamp, bytes, 3));
+            assertEquals(vector, new String(bytes, 3, vector.length(), StandardCharsets.US_ASCII));
+            for (ByteBuffer buf: Arrays.asList(heap, direct)) {
+                buf.clear();
+                buf.position(3);
+                assertEquals(vector, 3 + vector.length(), TimeMillis.formatIso(timestamp, buf));
+                assertEquals(vector, 3 + vector.length(), buf.position());
+                buf.flip();
+                buf.position(3);
+                assertEquals(vector, StandardCharsets.US_ASCII.decode(buf).toString());
+            }
+            String date = vector.substring(0, 10), time = vector.substring(11, vector.length() - 1);
+            long secs = Math.floorDiv(timestamp, 1000L);
+            int millis = (int) Math.floorMod(timestamp, 1000L);
+            assertEquals(vector, "> " + vector,
+                    TimeMillis.toIsoString(timestamp, new StringBuilder("> ")).toString());
+            assertEquals(vector, "> " + vector,
+                    TimeSecs.toIsoString(instant, new StringBuilder("> ")).toString());
+            assertEquals(vector, "> " + date + " " + time,
+                    TimeSecs.toDateTime(secs, millis, new StringBuilder("> ")).toString());
+            assertEquals(vector, "> " + date,
+                    TimeSecs.toDate(secs, new StringBuilder("> ")).toString());
+            assertEquals(vector, "> " + time,
+                    TimeSecs.toTime(secs, millis, new StringBuilder("> ")).toString());
+        }
+    }
+
+    @Test
+    public void testFormatOutOfRange()
+    {
+        assertEquals("0000-01-01T00:00:00Z", TimeMillis.toIsoString(TimeMillis.MIN_TIMESTAMP));
+        assertEquals("9999-12-31T23:59:59.999Z", TimeMillis.toIsoString(TimeMillis.MAX_TIMESTAMP));
+        TimeMillisFormat format = TimeMillisFormat.compile("yyyy-MM-dd HH:mm:ss");
+        char[] chars = new char[32];
+        byte[] bytes = new byte[32];
+        ByteBuffer direct = ByteBuffer.allocateDirect(32);
+        // just past either end, and far enough out that the day no longer fits an int
+        for (long timestamp: new long[]{TimeMillis.MAX_TIMESTAMP + 1, TimeMillis.MIN_TIMESTAMP - 1,
+                Long.MAX_VALUE, Long.MIN_VALUE}) {
+            for (Runnable formatter: Arrays.<Runnable>asList(
+                    () -> TimeMillis.toIsoString(timestamp),
+                    () -> TimeMillis.toIsoString(timestamp, new StringBuilder()),
+                    () -> TimeMillis.formatIso(timestamp, chars, 0),
+                    () -> TimeMillis.formatIso(timestamp, bytes, 0),
+                    () -> TimeMillis.formatIso(timestamp, direct.duplicate()),
+                    () -> TimeMillis.formatIsoFixed(timestamp, chars, 0),
+                    () -> TimeMillis.formatIsoFixed(timestamp, bytes, 0),
+                    () -> TimeSecs.toDate(Math.floorDiv(timestamp, 1000L), new StringBuilder()),
+                    () -> format.format(timestamp),
+                    () -> format.format(timestamp, bytes, 0))) {
+                try {
+                    formatter.run();
+                    fail(Long.toString(timestamp));
+                } catch (IllegalArgumentException expected) {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testArithmetic()
+    {
+        Random random = new Random();
+        // well inside the supported range, so that years and months can be added either way
+        final long begin = TimeMillis.of(100, 1, 1), end = TimeMillis.of(9900, 1, 1);
+        for (int i = 0; i < 1_000_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random, begin, end);
+            // and often the same day or time of day, and the ends of months, where the rounding is decided
+            long other = i % 3 == 0? timestamp + (random.nextInt(3) - 1) * 86400_000L * random.nextInt(4000):
+                    i % 3 == 1? TimeMillis.endOfMonth(timestamp) + random.nextInt(3) - 1:
+                    TimeMillis.nextRandomTimestamp(random, begin, end);
+            ZonedDateTime date = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC);
+            ZonedDateTime otherDate = Instant.ofEpochMilli(other).atZone(ZoneOffset.UTC);
+            String vector = timestamp + " " + date + " " + other + " " + otherDate;
+            int days = random.nextInt(100_000) - 50_000, months = random.nextInt(2000) - 1000, years = random.nextInt(200) - 100;
+            assertEquals(vector, date.plusDays(days).toInstant().toEpochMilli(), TimeMillis.plusDays(timestamp, days));
+            assertEquals(vector, date.plusMonths(months).toInstant().toEpochMilli(), TimeMillis.plusMonths(timestamp, months));
+            assertEquals(vector, date.plusYears(years).toInstant().toEpochMilli(), TimeMillis.plusYears(timestamp, years));
+            assertEquals(vector, ChronoUnit.DAYS.between(date, otherDate), TimeMillis.daysBetween(timestamp, other));
+            assertEquals(vector, ChronoUnit.MONTHS.between(date, otherDate), TimeMillis.monthsBetween(timestamp, other));
+            assertEquals(vector, ChronoUnit.YEARS.between(date, otherDate), TimeMillis.yearsBetween(timestamp, other));
+            assertEquals(vector, date.truncatedTo(ChronoUnit.DAYS).with(DayOfWeek.MONDAY).toInstant().toEpochMilli(),
+                    TimeMillis.startOfWeek(timestamp));
+            assertEquals(vector, date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1).toInstant().toEpochMilli() - 1,
+                    TimeMillis.endOfMonth(timestamp));
+        }
+    }
+
+    @Test
+    public void testCalendar()
+    {
+        // every day of the supported range, including those before the epoch
+        for (LocalDate date = LocalDate.of(0, 1, 1); date.getYear() <= 9999; date = date.plusDays(1)) {
+            long timestamp = TimeMillis.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            String vector = date.toString();
+            assertEquals(vector, date.toEpochDay() * 86_400_000L, timestamp);
+            assertEquals(vector, date.toEpochDay(), TimeMillis.dayOfEpoch(timestamp));
+            assertEquals(vector, date.getYear(), TimeMillis.getYear(timestamp));
+            assertEquals(vector, date.getMonthValue(), TimeMillis.getMonth(timestamp));
+            assertEquals(vector, date.getDayOfMonth(), TimeMillis.dayOfMonth(timestamp));
+            assertEquals(vector, date.getDayOfYear(), TimeMillis.dayOfYear(timestamp));
+            assertEquals(vector, date.getDayOfWeek().getValue(), TimeMillis.dayOfWeek(timestamp));
+            assertEquals(vector, date.withDayOfMonth(1).toEpochDay() * 86_400_000L, TimeMillis.truncateToMonths(timestamp));
+            assertEquals(vector, vector, TimeSecs.toDate(timestamp / 1000, new StringBuilder()).toString());
+            // whichever engine the accessors use, the other must agree
+            int yearMonthAndDays = TimeMillis.toYearMonthAndDays((int) date.toEpochDay());
+            assertEquals(vector, date.getYear(), yearMonthAndDays >> 9);
+            assertEquals(vector, TimeMillis.toMonthAndDays(TimeMillis.toYearAndDays((int) date.toEpochDay())),
+                    yearMonthAndDays & 511);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeMillisZoneTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        for (String zoneId: new String[]{"UTC", "Europe/London", "America/New_York", "Australia/Lord_Howe",
+                "Asia/Kolkata", "America/Sao_Paulo", "Pacific/Apia", "Africa/Casablanca"}) {
+            ZoneId zone = ZoneId.of(zoneId);
+            TimeMillisZone timeMillisZone = TimeMillisZone.of(zone);
+            // from 1800, so before 1970 and through the zones' LMT offsets of odd seconds, to beyond the precomputed transitions
+            long begin = TimeMillis.of(1800, 1, 1), end = TimeMillis.of(2200, 1, 1);
+            for (int i = 0; i < 20_000; i++) {
+                long timestamp = TimeMillis.nextRandomTimestamp(random, begin, end);
+                if (i % 4 == 0) {
+                    // exactly on the hour, where the transitions are
+                    timestamp = TimeMillis.truncateToHours(timestamp);
+                }
+                ZonedDateTime dateTime = Instant.ofEpochMilli(timestamp).atZone(zone);
+                String vector = zoneId + " " + dateTime;
+                assertEquals(vector, dateTime.getOffset().getTotalSeconds() * 1000, timeMillisZone.getOffsetMillis(timestamp));
+                assertEquals(vector, dateTime.getYear(), timeMillisZone.getYear(timestamp));
+                assertEquals(vector, dateTime.getMonthValue(), timeMillisZone.getMonth(timestamp));
+                assertEquals(vector, dateTime.getDayOfMonth(), timeMillisZone.dayOfMonth(timestamp));
+                assertEquals(vector, dateTime.getDayOfYear(), timeMillisZone.dayOfYear(timestamp));
+                assertEquals(vector, dateTime.getDayOfWeek().getValue(), timeMillisZone.dayOfWeek(timestamp));
+                assertEquals(vector, dateTime.getHour(), timeMillisZone.getHour(timestamp));
+                assertEquals(vector, dateTime.getMinute(), timeMillisZone.getMinute(timestamp));
+                assertEquals(vector, dateTime.truncatedTo(ChronoUnit.DAYS).toInstant().toEpochMilli(),
+                        timeMillisZone.truncateToDays(timestamp));
+                assertEquals(vector, dateTime.truncatedTo(ChronoUnit.HOURS).toInstant().toEpochMilli(),
+                        timeMillisZone.truncateToHours(timestamp));
+                assertEquals(vector, dateTime.toLocalDate().withDayOfMonth(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                        timeMillisZone.truncateToMonths(timestamp));
+                String local = dateTime.toLocalDateTime().toInstant(ZoneOffset.UTC).toString();
+                assertEquals(vector, local.substring(0, local.length() - 1) + dateTime.getOffset().getId(),
+                        timeMillisZone.toIsoString(timestamp));
+            }
+        }
+    }
+}
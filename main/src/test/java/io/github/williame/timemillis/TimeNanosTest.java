@@ -0,0 +1,111 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeNanosTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        char[] chars = new char[40];
+        byte[] bytes = new byte[40];
+        ByteBuffer direct = ByteBuffer.allocateDirect(40);
+        for (int i = 0; i < 1_000_000; i++) {
+            long timestamp = TimeNanos.nextRandomTimestamp(random);
+            switch (i % 4) {
+                case 0: // whole millis, so the fraction is written as 3 digits
+                    timestamp = TimeNanos.truncateToMillis(timestamp);
+                    break;
+                case 1: // whole seconds, with no fraction at all
+                    timestamp = TimeNanos.truncateToSeconds(timestamp);
+                    break;
+                case 2: // whole micros, so 6 digits
+                    timestamp = TimeNanos.truncateToMicros(timestamp);
+                    break;
+            }
+            Instant instant = TimeNanos.toInstant(timestamp);
+            ZonedDateTime date = instant.atZone(ZoneOffset.UTC);
+            String vector = timestamp + " " + instant;
+            assertEquals(vector, Instant.EPOCH.plus(timestamp, ChronoUnit.NANOS), instant);
+            assertEquals(vector, timestamp, TimeNanos.ofInstant(instant));
+            assertEquals(vector, instant.toString(), TimeNanos.toIsoString(timestamp));
+            assertEquals(vector, "[" + instant, TimeNanos.toIsoString(timestamp, new StringBuilder("[")).toString());
+            assertEquals(vector, instant.toString(), new String(chars, 3, TimeNanos.formatIso(timestamp, chars, 3) - 3));
+            assertEquals(vector, instant.toString(),
+                    new String(bytes, 3, TimeNanos.formatIso(timestamp, bytes, 3) - 3, StandardCharsets.US_ASCII));
+            direct.clear();
+            direct.position(3);
+            int end = TimeNanos.formatIso(timestamp, direct);
+            byte[] written = new byte[end - 3];
+            direct.position(3);
+            direct.get(written);
+            assertEquals(vector, instant.toString(), new String(written, StandardCharsets.US_ASCII));
+            assertEquals(vector, timestamp, TimeNanos.parse(instant.toString()));
+            assertEquals(vector, instant.truncatedTo(ChronoUnit.MICROS).toString(),
+                    TimeMicros.toIsoString(TimeNanos.toMicros(timestamp)));
+            assertEquals(vector, TimeNanos.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+                    date.getHour(), date.getMinute(), date.getSecond(), date.getNano()), timestamp);
+            assertEquals(vector, date.getYear(), TimeNanos.getYear(timestamp));
+            assertEquals(vector, date.getMonthValue(), TimeNanos.getMonth(timestamp));
+            assertEquals(vector, date.getDayOfMonth(), TimeNanos.dayOfMonth(timestamp));
+            assertEquals(vector, date.getDayOfYear(), TimeNanos.dayOfYear(timestamp));
+            assertEquals(vector, date.getDayOfWeek().getValue(), TimeNanos.dayOfWeek(timestamp));
+            assertEquals(vector, date.getHour(), TimeNanos.getHour(timestamp));
+            assertEquals(vector, date.getMinute(), TimeNanos.getMinute(timestamp));
+            assertEquals(vector, date.getSecond(), TimeNanos.getSecond(timestamp));
+            assertEquals(vector, date.getNano() / 1000_000, TimeNanos.getMilliseconds(timestamp));
+            assertEquals(vector, date.getNano() / 1000, TimeNanos.getMicroseconds(timestamp));
+            assertEquals(vector, date.getNano(), TimeNanos.getNanoseconds(timestamp));
+            assertEquals(vector, instant.toEpochMilli(), TimeNanos.toMillis(timestamp));
+            assertEquals(vector, TimeNanos.ofMillis(instant.toEpochMilli()), TimeNanos.truncateToMillis(timestamp));
+            if (timestamp >= TimeNanos.of(1677, 10, 1)) { // the start of anything in September 1677 may be before the range
+                assertEquals(vector, TimeNanos.ofInstant(date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).toInstant()),
+                        TimeNanos.truncateToMonths(timestamp));
+                assertEquals(vector, TimeNanos.ofInstant(instant.truncatedTo(ChronoUnit.DAYS)), TimeNanos.truncateToDays(timestamp));
+                assertEquals(vector, TimeNanos.ofInstant(instant.truncatedTo(ChronoUnit.HOURS)), TimeNanos.truncateToHours(timestamp));
+                assertEquals(vector, TimeNanos.ofInstant(instant.truncatedTo(ChronoUnit.MINUTES)), TimeNanos.truncateToMinutes(timestamp));
+            }
+        }
+    }
+
+    @Test
+    public void testOfInstantRange()
+    {
+        for (long timestamp: new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE, -1, 0}) {
+            assertEquals(timestamp, TimeNanos.ofInstant(TimeNanos.toInstant(timestamp)));
+        }
+        for (Instant instant: new Instant[]{Instant.MAX, Instant.MIN, TimeNanos.toInstant(Long.MAX_VALUE).plusNanos(1),
+                TimeNanos.toInstant(Long.MIN_VALUE).minusNanos(1)}) {
+            try {
+                TimeNanos.ofInstant(instant);
+                fail(instant.toString());
+            } catch (ArithmeticException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testParse()
+    {
+        assertEquals(TimeNanos.of(2020, 2, 29, 13, 30, 20, 123_456_000), TimeNanos.parse("2020-02-29T13:30:20.123456Z"));
+        assertEquals(TimeNanos.of(2020, 2, 29, 13, 30, 20, 123_456_789), TimeNanos.parse("2020-02-29T13:30:20.123456789Z"));
+        assertEquals(TimeNanos.of(2020, 2, 29, 12, 30, 20, 100_000_000), TimeNanos.parse("2020-02-29T13:30:20.1+01:00"));
+        assertEquals(TimeNanos.INVALID, TimeNanos.parse("2020-02-30T13:30:20.123456Z"));
+        // near the ends of the range of epoch nanos
+        assertEquals(TimeNanos.of(1677, 9, 22), TimeNanos.parse("1677-09-22T00:00:00Z"));
+        assertEquals(TimeNanos.of(2262, 4, 10, 23, 59, 59, 999_999_999), TimeNanos.parse("2262-04-10T23:59:59.999999999Z"));
+        assertEquals(TimeNanos.INVALID, TimeNanos.parse("2262-04-12T00:00:00Z"));
+        assertEquals(TimeNanos.INVALID, TimeNanos.parse("2020-02-29 13:30:20.1234567890"));
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimestampCodecTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        for (int c = 0; c < 400; c++) {
+            long[] timestamps = new long[random.nextInt(1000)];
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            int interval = random.nextInt(100_000);
+            for (int i = 0; i < timestamps.length; i++) {
+                switch (c % 4) {
+                    case 0: // a log, a few millis apart
+                        timestamp += random.nextInt(5);
+                        break;
+                    case 1: // a regular interval
+                        timestamp += interval;
+                        break;
+                    case 2: // nearly sorted
+                        timestamp += random.nextInt(100) - 10;
+                        break;
+                    default: // anything at all
+                        timestamp = random.nextInt(10) == 0? (random.nextBoolean()? Long.MIN_VALUE: Long.MAX_VALUE):
+                                random.nextLong();
+                }
+                timestamps[i] = timestamp;
+            }
+            byte[] encoded = TimestampCodec.encode(timestamps);
+            String vector = c + " " + Arrays.toString(timestamps);
+            assertEquals(vector, encoded.length, TimestampCodec.encodedLength(timestamps, 0, timestamps.length));
+            assertEquals(vector, timestamps.length, TimestampCodec.count(encoded));
+            assertArrayEquals(vector, timestamps, TimestampCodec.decode(encoded));
+            if (c % 4 == 1 && timestamps.length > 0) {
+                // a byte each, plus the header and the first of each block
+                assertTrue(vector, encoded.length <= timestamps.length + 16 * (timestamps.length / 128 + 1) + 2);
+            }
+            if (timestamps.length > 0) {
+                int index = random.nextInt(timestamps.length), count = random.nextInt(timestamps.length - index + 1);
+                long[] out = new long[count + 3];
+                TimestampCodec.decode(encoded, index, out, 3, count);
+                assertArrayEquals(vector, Arrays.copyOfRange(timestamps, index, index + count), Arrays.copyOfRange(out, 3, out.length));
+                assertEquals(vector, timestamps[index], TimestampCodec.get(encoded, index));
+            }
+            // and part of an array
+            int from = random.nextInt(timestamps.length + 1);
+            assertArrayEquals(vector, Arrays.copyOfRange(timestamps, from, timestamps.length),
+                    TimestampCodec.decode(TimestampCodec.encode(timestamps, from, timestamps.length - from)));
+        }
+    }
+
+    @Test
+    public void testByteBuffer()
+    {
+        Random random = new Random();
+        for (int c = 0; c < 100; c++) {
+            long[] timestamps = new long[random.nextInt(1000)];
+            long timestamp = TimeMillis.nextRandomTimestamp(random);
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamp += c % 2 == 0? random.nextInt(5): random.nextLong() >> random.nextInt(64);
+                timestamps[i] = timestamp;
+            }
+            String vector = c + " " + Arrays.toString(timestamps);
+            byte[] expected = TimestampCodec.encode(timestamps);
+            for (ByteBuffer buf: new ByteBuffer[]{ByteBuffer.allocate(expected.length + 10), ByteBuffer.allocateDirect(expected.length + 10)}) {
+                // at a position, and the same bytes as the array
+                buf.position(3);
+                TimestampCodec.encode(timestamps, 0, timestamps.length, buf);
+                assertEquals(vector, 3 + expected.length, buf.position());
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(vector, expected[i], buf.get(3 + i));
+                }
+                buf.position(3);
+                assertEquals(vector, timestamps.length, TimestampCodec.count(buf));
+                long[] out = new long[timestamps.length];
+                TimestampCodec.decode(buf, 0, out, 0, out.length);
+                assertArrayEquals(vector, timestamps, out);
+                if (timestamps.length > 0) {
+                    int index = random.nextInt(timestamps.length), count = random.nextInt(timestamps.length - index + 1);
+                    out = new long[count];
+                    TimestampCodec.decode(buf, index, out, 0, count);
+                    assertArrayEquals(vector, Arrays.copyOfRange(timestamps, index, index + count), out);
+                }
+                assertEquals(vector, 3, buf.position());
+            }
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testByteBufferOverflow()
+    {
+        long[] timestamps = new long[1000];
+        ByteBuffer buf = ByteBuffer.allocate(TimestampCodec.encodedLength(timestamps, 0, timestamps.length) - 1);
+        TimestampCodec.encode(timestamps, 0, timestamps.length, buf);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLong()
+    {
+        // blocks of 128 timestamps of 10 bytes each, more than 2 GB of them
+        int[] blocks = new int[(Integer.MAX_VALUE - 8) / 1281 + 1];
+        Arrays.fill(blocks, 1281 << 1);
+        TimestampCodec.length(blocks.length * 128, blocks);
+    }
+
+    @Test
+    public void testForEach()
+    {
+        Random random = new Random();
+        long[] timestamps = new long[10_000];
+        long timestamp = TimeMillis.of(2020, 1, 1);
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += random.nextInt(60_000);
+            timestamps[i] = timestamp;
+        }
+        int[] expected = new int[24], hours = new int[24];
+        for (long t: timestamps) {
+            expected[TimeMillis.getHour(t)]++;
+        }
+        TimestampCodec.forEach(TimestampCodec.encode(timestamps), t -> hours[TimeMillis.getHour(t)]++);
+        assertArrayEquals(expected, hours);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRange()
+    {
+        TimestampCodec.decode(TimestampCodec.encode(new long[10]), 5, new long[10], 0, 6);
+    }
+}
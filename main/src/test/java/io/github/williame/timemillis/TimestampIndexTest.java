@@ -0,0 +1,129 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimestampIndexTest
+{
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        for (int r = 0; r < 20; r++) {
+            TimestampIndex index = new TimestampIndex();
+            List<Long> expected = new ArrayList<>();
+            long clock = TimeMillis.of(2020, 1, 1);
+            for (int i = 0; i < 20_000; i++) {
+                // mostly in order, some late, some repeated, and now and then the oldest fall out of the window
+                int op = random.nextInt(100);
+                if (op < 70) {
+                    clock += random.nextInt(3);
+                    add(index, expected, clock);
+                } else if (op < 95) {
+                    add(index, expected, clock - random.nextInt(r * 1000 + 1));
+                } else if (op < 99) {
+                    add(index, expected, expected.isEmpty()? clock: expected.get(random.nextInt(expected.size())));
+                } else {
+                    long before = clock - random.nextInt(10_000);
+                    int removed = 0;
+                    while (!expected.isEmpty() && expected.get(0) < before) {
+                        expected.remove(0);
+                        removed++;
+                    }
+                    assertEquals(removed, index.removeBefore(before));
+                }
+                if (i % 1000 == 0 || i < 100) {
+                    check(random, index, expected);
+                }
+            }
+            check(random, index, expected);
+            index.clear();
+            assertTrue(index.isEmpty());
+            assertEquals(0, index.rank(clock));
+        }
+    }
+
+    private static void add(TimestampIndex index, List<Long> expected, long timestamp)
+    {
+        index.add(timestamp);
+        int pos = Collections.binarySearch(expected, timestamp);
+        expected.add(pos < 0? -pos - 1: pos, timestamp);
+    }
+
+    private static void check(Random random, TimestampIndex index, List<Long> expected)
+    {
+        assertEquals(expected.size(), index.size());
+        long[] array = index.toArray();
+        for (int i = 0; i < array.length; i++) {
+            assertEquals(expected.get(i).longValue(), array[i]);
+        }
+        if (expected.isEmpty()) {
+            return;
+        }
+        assertEquals(expected.get(0).longValue(), index.first());
+        assertEquals(expected.get(expected.size() - 1).longValue(), index.last());
+        for (int i = 0; i < 100; i++) {
+            int k = random.nextInt(expected.size());
+            assertEquals(expected.get(k).longValue(), index.get(k));
+            long from = expected.get(k) + random.nextInt(3) - 1, to = from + random.nextInt(5000) - 100;
+            int rank = 0;
+            while (rank < expected.size() && expected.get(rank) < from) {
+                rank++;
+            }
+            assertEquals(from + "", rank, index.rank(from));
+            int count = 0;
+            for (long timestamp: expected) {
+                count += timestamp >= from && timestamp < to? 1: 0;
+            }
+            assertEquals(from + " " + to, count, index.count(from, to));
+            assertEquals(from + " " + to, count, index.range(from, to).length);
+        }
+    }
+
+    @Test
+    public void testGroupBy()
+    {
+        Random random = new Random();
+        TimestampIndex index = new TimestampIndex();
+        long from = TimeMillis.of(2019, 11, 20, 13, 0, 0), to = TimeMillis.of(2020, 4, 3);
+        int[] hours = new int[24 * 150], days = new int[150], months = new int[6];
+        for (int i = 0; i < 100_000; i++) {
+            long timestamp = TimeMillis.nextRandomTimestamp(random, from - 10 * 86_400_000L, to);
+            index.add(timestamp);
+            ZonedDateTime date = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC);
+            long hour = Math.floorDiv(timestamp - TimeMillis.truncateToHours(from), 3_600_000L);
+            long day = Math.floorDiv(timestamp - TimeMillis.truncateToDays(from), 86_400_000L);
+            long month = (date.getYear() - 2019) * 12 + date.getMonthValue() - 11;
+            if (hour >= 0 && hour < hours.length) {
+                hours[(int) hour]++;
+            }
+            if (day >= 0 && day < days.length) {
+                days[(int) day]++;
+            }
+            if (month >= 0 && month < months.length) {
+                months[(int) month]++;
+            }
+        }
+        int[] counts = new int[hours.length];
+        index.countByHours(from + 1234, counts);
+        assertArrayEquals(hours, counts);
+        counts = new int[days.length];
+        index.countByDays(from, counts);
+        assertArrayEquals(days, counts);
+        counts = new int[months.length];
+        index.countByMonths(from, counts);
+        assertArrayEquals(months, counts);
+        counts = new int[2];
+        index.countBetween(new long[]{from, to, to + 1}, counts);
+        assertArrayEquals(new int[]{index.count(from, to), 0}, counts);
+    }
+}
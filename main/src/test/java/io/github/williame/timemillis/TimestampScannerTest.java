@@ -0,0 +1,224 @@
+package io.github.williame.timemillis;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TimestampScannerTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int files;
+
+    private Path newFile() throws IOException
+    {
+        return folder.newFile("timestamps" + files++ + ".csv").toPath();
+    }
+
+    @Test
+    public void test() throws IOException
+    {
+        Random random = new Random();
+        for (int f = 0; f < 20; f++) {
+            // a CSV file with the timestamp in the third column, some rows without one
+            StringBuilder file = new StringBuilder();
+            List<Long> expected = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            int lines = random.nextInt(2000);
+            for (int i = 0; i < lines; i++) {
+                offsets.add((long) file.length());
+                long timestamp = TimeMillis.nextRandomTimestamp(random);
+                switch (random.nextInt(10)) {
+                    case 0:
+                        file.append(i).append(",short");
+                        expected.add(TimeMillis.INVALID);
+                        break;
+                    case 1:
+                        expected.add(TimeMillis.INVALID);
+                        break;
+                    case 2:
+                        file.append(i).append(",x,not a timestamp,").append(random.nextInt());
+                        expected.add(TimeMillis.INVALID);
+                        break;
+                    case 3:
+                        file.append(i).append(",x,").append(TimeMillis.toIsoString(timestamp));
+                        expected.add(timestamp);
+                        break;
+                    default:
+                        file.append(i).append(",").append(random.nextInt()).append(",")
+                                .append(TimeMillis.toIsoString(timestamp)).append(",GET /index.html");
+                        expected.add(timestamp);
+                }
+                // the last line may go without a newline, unless it's empty and would then not be a line
+                if (i < lines - 1 || random.nextBoolean() || file.length() == offsets.get(i)) {
+                    file.append(random.nextBoolean()? "\r\n": "\n");
+                }
+            }
+            Path path = newFile();
+            Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+            TimestampScanner scanner = TimestampScanner.ofColumn(2, ',');
+            long[] expectedTimestamps = new long[expected.size()];
+            for (int i = 0; i < expectedTimestamps.length; i++) {
+                expectedTimestamps[i] = expected.get(i);
+            }
+            assertArrayEquals(expectedTimestamps, scanner.scan(path));
+            List<Long> scannedOffsets = new ArrayList<>();
+            assertEquals(lines, scanner.scan(path, (offset, timestamp) -> scannedOffsets.add(offset)));
+            assertEquals(offsets, scannedOffsets);
+            // small parts and mappings, so lines cross them
+            int mappingSize = 100 + random.nextInt(200);
+            assertArrayEquals(expectedTimestamps,
+                    scanner.scanParallel(path, ForkJoinPool.commonPool(), 1 + random.nextInt(5000), mappingSize));
+            try (FileChannel channel = FileChannel.open(path)) {
+                List<Long> mapped = new ArrayList<>();
+                scanner.scan(channel, 0, channel.size(), mappingSize, (offset, timestamp) -> mapped.add(timestamp));
+                assertEquals(expected, mapped);
+            }
+        }
+    }
+
+    @Test
+    public void testLineStart() throws IOException
+    {
+        Path path = newFile();
+        Files.write(path, ("2020-03-01T10:00:00.123Z INFO started\n" +
+                "\tat com.example.Main.main(Main.java:10)\n" +
+                "2020-03-01T10:00:01Z WARN slow\n").getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(new long[]{TimeMillis.of(2020, 3, 1, 10, 0, 0, 123), TimeMillis.INVALID,
+                TimeMillis.of(2020, 3, 1, 10, 0, 1)}, TimestampScanner.ofLineStart().scanParallel(path));
+        assertArrayEquals(new long[0], TimestampScanner.ofLineStart().scan(newFile()));
+    }
+
+    @Test
+    public void testFindRange() throws IOException
+    {
+        Random random = new Random();
+        for (int f = 0; f < 20; f++) {
+            // a sorted log with repeated timestamps, stack traces and the odd line longer than a probe
+            StringBuilder file = new StringBuilder();
+            List<Long> timestamps = new ArrayList<>(), offsets = new ArrayList<>();
+            long timestamp = TimeMillis.of(2020, 1, 1);
+            int lines = random.nextInt(3000);
+            for (int i = 0; i < lines; i++) {
+                offsets.add((long) file.length());
+                if (i > 0 && random.nextInt(8) == 0) {
+                    file.append("\tat Main.main(Main.java:").append(i).append(")\n");
+                    timestamps.add(TimeMillis.INVALID);
+                    continue;
+                }
+                timestamp += random.nextInt(3) * 1000;
+                file.append(TimeMillis.toIsoString(timestamp)).append(" INFO");
+                for (int j = random.nextInt(200) == 0? 5000: random.nextInt(50); j > 0; j--) {
+                    file.append(' ');
+                }
+                file.append("message ").append(i).append('\n');
+                timestamps.add(timestamp);
+            }
+            Path path = newFile();
+            Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+            TimestampScanner scanner = TimestampScanner.ofLineStart();
+            for (int i = 0; i < 100; i++) {
+                long from = TimeMillis.of(2020, 1, 1) + random.nextInt(lines + 10) * 1000L - 1000;
+                long to = from + random.nextInt(100) * 1000L - 10_000;
+                long[] range = scanner.findRange(path, from, to);
+                long begin = lowerBound(timestamps, offsets, file.length(), from);
+                long end = to > from? lowerBound(timestamps, offsets, file.length(), to): begin;
+                assertEquals(from + " " + to, begin, range[0]);
+                assertEquals(from + " " + to, end, range[1]);
+            }
+        }
+    }
+
+    // The first line with a timestamp at or after the given one, the slow way
+    private static long lowerBound(List<Long> timestamps, List<Long> offsets, long size, long timestamp)
+    {
+        for (int i = 0; i < timestamps.size(); i++) {
+            if (timestamps.get(i) != TimeMillis.INVALID && timestamps.get(i) >= timestamp) {
+                return offsets.get(i);
+            }
+        }
+        return size;
+    }
+
+    @Test
+    public void testLenient() throws IOException
+    {
+        Path path = newFile();
+        Files.write(path, ("20200301100000123 INFO compact\n" +
+                "2020-03-01_10:00:01.5 INFO other separator, short fraction\n" +
+                "2020-03-01T10:00:02.123Z INFO iso\n" +
+                "2020-13-01T10:00:03.123Z INFO no such month\n" +
+                "20200301100004123" + new String(new char[100]).replace('\0', '9') + " INFO long field\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(new long[]{TimeMillis.of(2020, 3, 1, 10, 0, 0, 123), TimeMillis.of(2020, 3, 1, 10, 0, 1, 500),
+                TimeMillis.of(2020, 3, 1, 10, 0, 2, 123), TimeMillis.INVALID, TimeMillis.of(2020, 3, 1, 10, 0, 4, 123)},
+                TimestampScanner.ofLineStart().scan(path));
+        assertArrayEquals(new long[]{TimeMillis.INVALID, TimeMillis.INVALID,
+                TimeMillis.of(2020, 3, 1, 10, 0, 2, 123), TimeMillis.INVALID, TimeMillis.INVALID},
+                TimestampScanner.ofLineStart().strict().scan(path));
+        // a sorted log in the compact layout
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            file.append(TimeMillisFormat.compile("yyyyMMddHHmmssSSS").format(TimeMillis.of(2020, 1, 1) + i * 1000L))
+                    .append(" INFO message ").append(i).append('\n');
+        }
+        Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+        long[] range = TimestampScanner.ofLineStart().findRange(path, TimeMillis.of(2020, 1, 1, 0, 1, 0), TimeMillis.of(2020, 1, 1, 0, 2, 0));
+        assertEquals(file.indexOf("20200101000100000"), range[0]);
+        assertEquals(file.indexOf("20200101000200000"), range[1]);
+        range = TimestampScanner.ofLineStart().strict().findRange(path, TimeMillis.of(2020, 1, 1, 0, 1, 0), TimeMillis.of(2020, 1, 1, 0, 2, 0));
+        assertEquals(file.length(), range[0]);
+    }
+
+    @Test
+    public void testLinesLongerThanTail() throws IOException
+    {
+        // lines far longer than is mapped past a part's end, or looked at first for a line start
+        StringBuilder file = new StringBuilder();
+        long[] expected = new long[20];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = TimeMillis.of(2020, 1, 1) + i;
+            file.append(TimeMillis.toIsoString(expected[i])).append(' ');
+            for (int j = i % 3 == 0? 200_000: 10; j > 0; j--) {
+                file.append('x');
+            }
+            file.append('\n');
+        }
+        Path path = newFile();
+        Files.write(path, file.toString().getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(expected, TimestampScanner.ofLineStart().scanParallel(path, ForkJoinPool.commonPool(), 50_000, 1 << 20));
+        try (FileChannel channel = FileChannel.open(path)) {
+            List<Long> scanned = new ArrayList<>();
+            TimestampScanner.ofLineStart().scan(channel, 0, 10, 1 << 20, (offset, timestamp) -> scanned.add(timestamp));
+            assertEquals(1, scanned.size());
+            assertEquals(expected[0], (long) scanned.get(0));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLongLine() throws IOException
+    {
+        Path path = newFile();
+        Files.write(path, new byte[1000]);
+        TimestampScanner.ofLineStart().scanParallel(path, ForkJoinPool.commonPool(), 100, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDelimiter()
+    {
+        TimestampScanner.ofColumn(1, '\n');
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.williame.timemillis;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.L2I;
+
+/**
+ * Bulk versions of the TimeMillis field accessors over columns of timestamps from 0000 to 9999, computed
+ * a whole vector of lanes at a time.  Each out[outOffset + i] is what the TimeMillis accessor gives for
+ * in[inOffset + i].
+ * <p>
+ * There is no lane-wise integer division, so the lanes are held as whole numbers in doubles and each
+ * division by a constant is a fused multiply-add by its reciprocal, and the calendar is done with two
+ * such divisions rather than the tables and branches of the scalar code.  C2 gives up inlining the
+ * vector operations, and boxes every one, past a modest size, so the constants are vectors already
+ * and the operations are kept few.  Where the preferred vectors are narrower than 512 bits, 64-bit lanes
+ * are slower than the scalar loop, so that is used instead; the scalar loop also finishes off the tail
+ * of each column.
+ */
+public final class TimeMillisVectors {
+
+    private TimeMillisVectors() {}
+
+    public static void truncateToDays(long[] in, long[] out) {
+        truncateToDays(in, 0, out, 0, in.length);
+    }
+
+    public static void truncateToDays(long[] in, int inOffset, long[] out, int outOffset, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        int i = 0;
+        if (VECTORIZED) {
+            for (; i < LONGS.loopBound(count); i += LONGS.length()) {
+                final DoubleVector days = floorDiv(millis(in, inOffset + i), DAY_SHIFT, DAY_RECIPROCAL);
+                days.fma(DAY, ROUNDING).reinterpretAsLongs().sub(EPOCH_BITS).intoArray(out, outOffset + i);
+            }
+        }
+        for (; i < count; i++) {
+            out[outOffset + i] = TimeMillis.truncateToDays(in[inOffset + i]);
+        }
+    }
+
+    // 0 to 23
+    public static void getHour(long[] in, int[] out) {
+        getHour(in, 0, out, 0, in.length);
+    }
+
+    public static void getHour(long[] in, int inOffset, int[] out, int outOffset, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        int i = 0;
+        if (VECTORIZED) {
+            for (; i < LONGS.loopBound(count); i += LONGS.length()) {
+                final DoubleVector millis = millis(in, inOffset + i);
+                final DoubleVector millisOfDay = floorDiv(millis, DAY_SHIFT, DAY_RECIPROCAL).fma(MINUS_DAY, millis);
+                intoArray(roundedDiv(millisOfDay, HOUR_SHIFT, HOUR_RECIPROCAL), out, outOffset + i);
+            }
+        }
+        for (; i < count; i++) {
+            out[outOffset + i] = TimeMillis.getHour(in[inOffset + i]);
+        }
+    }
+
+    // 1 to 7 (Monday to Sunday)
+    public static void dayOfWeek(long[] in, int[] out) {
+        dayOfWeek(in, 0, out, 0, in.length);
+    }
+
+    public static void dayOfWeek(long[] in, int inOffset, int[] out, int outOffset, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        int i = 0;
+        if (VECTORIZED) {
+            for (; i < LONGS.loopBound(count); i += LONGS.length()) {
+                // 1970-01-01 was a Thursday
+                final DoubleVector days = floorDiv(millis(in, inOffset + i), DAY_SHIFT, DAY_RECIPROCAL).add(THURSDAY);
+                intoArray(floorDiv(days, WEEK_SHIFT, WEEK_RECIPROCAL).fma(MINUS_WEEK, days).add(ROUNDING_PLUS_ONE),
+                        out, outOffset + i);
+            }
+        }
+        for (; i < count; i++) {
+            out[outOffset + i] = TimeMillis.dayOfWeek(in[inOffset + i]);
+        }
+    }
+
+    public static void getYear(long[] in, int[] out) {
+        getYear(in, 0, out, 0, in.length);
+    }
+
+    public static void getYear(long[] in, int inOffset, int[] out, int outOffset, int count) {
+        checkBulkRange(in.length, inOffset, out.length, outOffset, count);
+        int i = 0;
+        if (VECTORIZED) {
+            for (; i < LONGS.loopBound(count); i += LONGS.length()) {
+                intoArray(year(floorDiv(millis(in, inOffset + i), DAY_SHIFT, DAY_RECIPROCAL)), out, outOffset + i);
+            }
+        }
+        for (; i < count; i++) {
+            out[outOffset + i] = TimeMillis.getYear(in[inOffset + i]);
+        }
+    }
+
+    /**
+     * The year of each day since -0400-03-01, counting years from the 1st of March so that the leap day
+     * is the last of its year: scaling days by 4 makes each century 146097 quarter-days and, within a
+     * century, each year 1461, so two divisions give the century and the year, and what is left over is
+     * the day of the year.  The year is returned rounded, as intoArray takes it.
+     */
+    private static DoubleVector year(DoubleVector days) {
+        final DoubleVector quarterDays = days.fma(FOUR, THREE);
+        final DoubleVector century = floorDiv(quarterDays, CENTURY_SHIFT, CENTURY_RECIPROCAL);
+        // the last quarter of its day, by setting the low bits of it rounded
+        final DoubleVector quarterDaysOfCentury = century.fma(MINUS_CENTURY, quarterDays).add(ROUNDING)
+                .reinterpretAsLongs().or(THREE_BITS).reinterpretAsDoubles().sub(ROUNDING);
+        final DoubleVector yearOfCentury = floorDiv(quarterDaysOfCentury, YEAR_SHIFT, YEAR_RECIPROCAL);
+        final DoubleVector quarterDaysOfYear = yearOfCentury.fma(MINUS_YEAR, quarterDaysOfCentury);
+        // January and February, which start at the 306th day of the March-based year, belong to the next year
+        return century.fma(HUNDRED, yearOfCentury).add(ROUNDING_MINUS_400)
+                .add(ONE, quarterDaysOfYear.compare(GE, MARCH_BASED_JANUARY));
+    }
+
+    // Millis since -0400-03-01, as whole numbers held as doubles
+    private static DoubleVector millis(long[] in, int offset) {
+        return LongVector.fromArray(LONGS, in, offset).add(EPOCH_BITS).reinterpretAsDoubles().sub(ROUNDING);
+    }
+
+    private static DoubleVector floorDiv(DoubleVector dividend, DoubleVector shift, DoubleVector reciprocal) {
+        return roundedDiv(dividend, shift, reciprocal).sub(ROUNDING);
+    }
+
+    /**
+     * Division of whole numbers from 0 to 2^51, returned rounded.  The dividend is shifted down by just
+     * under half a divisor so that rounding the quotient to the nearest, in the same fused multiply-add,
+     * gives its whole part: the quotient is then at least half of one over the divisor away from a half,
+     * which is more than the rounding of the reciprocal can take away from dividends of that size.
+     */
+    private static DoubleVector roundedDiv(DoubleVector dividend, DoubleVector shift, DoubleVector reciprocal) {
+        return dividend.add(shift).fma(reciprocal, ROUNDING);
+    }
+
+    // The whole numbers held in rounded lanes
+    private static void intoArray(DoubleVector rounded, int[] out, int offset) {
+        rounded.reinterpretAsLongs().sub(ROUNDING_BITS).convertShape(L2I, INTS, 0).reinterpretAsInts().intoArray(out, offset);
+    }
+
+    private static void checkBulkRange(int inLength, int inOffset, int outLength, int outOffset, int count) {
+        if (count < 0 || inOffset < 0 || outOffset < 0 ||
+                inOffset > inLength - count || outOffset > outLength - count) {
+            throw new IndexOutOfBoundsException("in: " + inOffset + "+" + count + " of " + inLength +
+                    ", out: " + outOffset + "+" + count + " of " + outLength);
+        }
+    }
+
+    private static DoubleVector broadcast(double value) {
+        return DoubleVector.broadcast(DOUBLES, value);
+    }
+
+    private static DoubleVector shift(long divisor) {
+        return broadcast(-(divisor - 1) / 2.0);
+    }
+
+    private static DoubleVector reciprocal(long divisor) {
+        return broadcast(1.0 / divisor);
+    }
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // as many int lanes as there are long lanes
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    // -Dtimemillis.vectors=false forces the scalar loops, e.g. to compare the two
+    static final boolean VECTORIZED = LONGS.vectorBitSize() >= 512 &&
+            Boolean.parseBoolean(System.getProperty("timemillis.vectors", "true"));
+
+    private static final long
+            MILLIS_IN_HOUR = 60 * 60 * 1000,
+            MILLIS_IN_DAY = MILLIS_IN_HOUR * 24,
+            QUARTER_DAYS_IN_CENTURY = 146_097,
+            QUARTER_DAYS_IN_YEAR = 1461,
+            // from -0400-03-01, so that the timestamps of 0000 to 9999 are all positive and start an era
+            DAYS_BEFORE_EPOCH = 719_468 + 146_097;
+
+    /**
+     * Once 1.5 * 2^52 is added to a whole number below 2^51 there are no bits of the mantissa left for
+     * fractions, so it is rounded, and its bits as a double are its bits as a long plus a constant; the
+     * vector casts between the two would be simpler, but aren't intrinsics on all JDKs.
+     */
+    private static final double ROUNDING_VALUE = 0x1.8p52;
+
+    private static final DoubleVector
+            ROUNDING = broadcast(ROUNDING_VALUE),
+            ROUNDING_PLUS_ONE = broadcast(ROUNDING_VALUE + 1),
+            ROUNDING_MINUS_400 = broadcast(ROUNDING_VALUE - 400),
+            ONE = broadcast(1),
+            THREE = broadcast(3),
+            FOUR = broadcast(4),
+            HUNDRED = broadcast(100),
+            THURSDAY = broadcast(Math.floorMod(3 - DAYS_BEFORE_EPOCH, 7)),
+            MARCH_BASED_JANUARY = broadcast(306 * 4),
+            DAY = broadcast(MILLIS_IN_DAY),
+            MINUS_DAY = broadcast(-MILLIS_IN_DAY),
+            DAY_SHIFT = shift(MILLIS_IN_DAY),
+            DAY_RECIPROCAL = reciprocal(MILLIS_IN_DAY),
+            HOUR_SHIFT = shift(MILLIS_IN_HOUR),
+            HOUR_RECIPROCAL = reciprocal(MILLIS_IN_HOUR),
+            MINUS_WEEK = broadcast(-7),
+            WEEK_SHIFT = shift(7),
+            WEEK_RECIPROCAL = reciprocal(7),
+            MINUS_CENTURY = broadcast(-QUARTER_DAYS_IN_CENTURY),
+            CENTURY_SHIFT = shift(QUARTER_DAYS_IN_CENTURY),
+            CENTURY_RECIPROCAL = reciprocal(QUARTER_DAYS_IN_CENTURY),
+            MINUS_YEAR = broadcast(-QUARTER_DAYS_IN_YEAR),
+            YEAR_SHIFT = shift(QUARTER_DAYS_IN_YEAR),
+            YEAR_RECIPROCAL = reciprocal(QUARTER_DAYS_IN_YEAR);
+
+    private static final LongVector
+            ROUNDING_BITS = LongVector.broadcast(LONGS, Double.doubleToRawLongBits(ROUNDING_VALUE)),
+            EPOCH_BITS = LongVector.broadcast(LONGS, Double.doubleToRawLongBits(ROUNDING_VALUE) +
+                    DAYS_BEFORE_EPOCH * MILLIS_IN_DAY),
+            THREE_BITS = LongVector.broadcast(LONGS, 3);
+}
@@ -0,0 +1,73 @@
+package io.github.williame.timemillis;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeMillisVectorsTest {
+
+    @Test
+    public void test()
+    {
+        Random random = new Random();
+        // odd lengths and offsets so the scalar tails are exercised too
+        final int count = 100_003, offset = 5;
+        long[] timestamps = new long[offset + count];
+        for (int i = offset; i < timestamps.length; i++) {
+            switch (i % 4) {
+                case 0: // around the epoch
+                    timestamps[i] = TimeMillis.nextRandomTimestamp(random, -MILLIS_IN_YEAR, MILLIS_IN_YEAR);
+                    break;
+                case 1: // the ends of the range and day boundaries
+                    timestamps[i] = (random.nextBoolean()? MIN_TIMESTAMP: MAX_TIMESTAMP) +
+                            (random.nextInt(3) - 1) * 86400_000L * random.nextInt(400) + random.nextInt(3) - 1;
+                    timestamps[i] = Math.max(MIN_TIMESTAMP, Math.min(MAX_TIMESTAMP, timestamps[i]));
+                    break;
+                default:
+                    timestamps[i] = TimeMillis.nextRandomTimestamp(random);
+            }
+        }
+        int[] fields = new int[count + offset];
+        long[] truncated = new long[count + offset];
+
+        TimeMillisVectors.truncateToDays(timestamps, offset, truncated, 0, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(vector(timestamps[offset + i]), TimeMillis.truncateToDays(timestamps[offset + i]), truncated[i]);
+        }
+        TimeMillisVectors.getHour(timestamps, offset, fields, 0, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(vector(timestamps[offset + i]), TimeMillis.getHour(timestamps[offset + i]), fields[i]);
+        }
+        TimeMillisVectors.dayOfWeek(timestamps, offset, fields, 0, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(vector(timestamps[offset + i]), TimeMillis.dayOfWeek(timestamps[offset + i]), fields[i]);
+        }
+        TimeMillisVectors.getYear(timestamps, offset, fields, 0, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(vector(timestamps[offset + i]), TimeMillis.getYear(timestamps[offset + i]), fields[i]);
+        }
+        // and writing at an offset
+        TimeMillisVectors.getYear(timestamps, 0, fields, offset, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(vector(timestamps[i]), TimeMillis.getYear(timestamps[i]), fields[offset + i]);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRange()
+    {
+        TimeMillisVectors.getYear(new long[10], 2, new int[10], 0, 9);
+    }
+
+    private static String vector(long timestamp) {
+        return timestamp + " " + Instant.ofEpochMilli(timestamp);
+    }
+
+    private static final long
+            MILLIS_IN_YEAR = 365 * 86400_000L,
+            MIN_TIMESTAMP = Instant.parse("0000-01-01T00:00:00Z").toEpochMilli(),
+            MAX_TIMESTAMP = Instant.parse("9999-12-31T23:59:59.999Z").toEpochMilli();
+}